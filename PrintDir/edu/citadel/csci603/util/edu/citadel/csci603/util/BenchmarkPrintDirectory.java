@@ -0,0 +1,526 @@
+package edu.citadel.csci603.util;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Simple timing driver for the directory printers.  Builds a synthetic
+ * tree in a temporary directory, runs each printer on it with standard
+ * output redirected to a stream that only counts and checksums the bytes
+ * written, and reports the time per entry.  Every mode must produce the
+ * same checksum as the sequential PrintDirectoryStructure.
+ * <p>
+ * When strace is installed, the file system calls made by each printer
+ * are also counted, by running it in a child JVM under "strace -c".  This
+ * has not been run yet, so there are no system call counts to compare,
+ * and the timings so far are from trees of about 21,000 entries rather
+ * than the million-file tree the counts were meant for.
+ * <p>
+ * Rendering alone is timed on a synthetic tree of RENDER_ENTRIES entries
+ * held in memory, written to a temporary file through a PrintStream set
+ * up the way the JDK sets up System.out, comparing one println per line
+ * with TreeWriter in its normal and compact modes.
+ * <p>
+ * Finally a DirectorySnapshot of the tree is taken, and comparing the tree
+ * with it is timed with no changes and with a few files added.  Then a
+ * LiveDirectoryTree is loaded, and printing the tree from it is compared
+ * with walking the tree with PrintDirectoryStructureVisitor, as a polling
+ * loop would.
+ * <p>
+ * Usage: BenchmarkPrintDirectory [&lt;number of files&gt;]
+ * (default 100000, spread over 1110 directories three levels deep)
+ */
+public class BenchmarkPrintDirectory {
+    private static final int FANOUT = 10;
+    private static final int DEPTH = 3;
+    private static final int RENDER_ENTRIES = 1_000_000;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("-legacy")) {
+            // run by countSyscalls()
+            legacyPrintTree(new File(args[1]));
+            return;
+        }
+
+        int files = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        Path root = Files.createTempDirectory("printdir");
+        try {
+            long start = System.nanoTime();
+            int entries = createTree(root, files);
+            System.out.printf("created %,d entries in %.1f s%n", entries, (System.nanoTime() - start) / 1e9);
+
+            // run everything twice so the second pass is measured after JIT warm-up
+            for (int pass = 1; pass <= 2; pass++) {
+                System.out.println("Pass " + pass);
+                benchmarkParallel(root, entries);
+                benchmarkAttributes(root, entries);
+                benchmarkRendering(RENDER_ENTRIES);
+            }
+            countSyscalls(root, entries);
+            benchmarkSnapshot(root, entries);
+            benchmarkLive(root, entries);
+        } finally {
+            deleteTree(root);
+        }
+    }
+
+    /**
+     * Times the sequential printer and the parallel printer at 1 to N
+     * workers, where N is at least 8 and at least twice the number of
+     * processors, since more workers than processors pay off when the walk
+     * blocks on I/O.
+     */
+    private static void benchmarkParallel(Path root, int entries) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("PrintDirectoryStructure sequential / parallel (" + cores + " cores), ns per entry");
+
+        Result sequential = run(() -> PrintDirectoryStructure.printTree(root));
+        System.out.printf("  sequential:     %7.1f%n", (double) sequential.nanos / entries);
+
+        for (int workers = 1; workers <= Math.max(8, 2 * cores); workers *= 2) {
+            int w = workers;
+            Result parallel = run(() -> PrintDirectoryStructure.printTreeParallel(root, w));
+            System.out.printf("  %2d worker(s):   %7.1f   (%s)%n", workers, (double) parallel.nanos / entries,
+                              parallel.sameOutput(sequential) ? "same output" : "OUTPUT DIFFERS");
+        }
+        System.out.println();
+    }
+
+    /**
+     * Compares the java.io.File walker that PrintDirectoryStructure used to
+     * have, which called isFile() on every entry returned by listFiles(),
+     * with the DirectoryStream and BasicFileAttributes walker that replaced
+     * it, and with PrintDirectoryStructureVisitor.
+     */
+    private static void benchmarkAttributes(Path root, int entries) {
+        System.out.println("File.listFiles + isFile / DirectoryStream + readAttributes / walkFileTree visitor, "
+                           + "ns per entry");
+
+        Result legacy = run(() -> legacyPrintTree(root.toFile()));
+        Result stream = run(() -> PrintDirectoryStructure.printTree(root));
+        Result visitor = run(() -> {
+            System.out.println(root);
+            Files.walkFileTree(root, new PrintDirectoryStructureVisitor());
+        });
+
+        System.out.printf("  %7.1f  %7.1f  %7.1f   (%s)%n",
+                          (double) legacy.nanos / entries, (double) stream.nanos / entries,
+                          (double) visitor.nanos / entries,
+                          legacy.sameOutput(stream) && legacy.sameOutput(visitor)
+                              ? "same output" : "OUTPUT DIFFERS");
+        System.out.println();
+    }
+
+    /**
+     * The java.io.File version of PrintDirectoryStructure.printTree, kept
+     * for comparison.
+     */
+    private static void legacyPrintTree(File file) {
+        System.out.println(file.getPath());
+        legacyPrintDirectory(file, 0);
+    }
+
+    private static void legacyPrintDirectory(File dir, int nestingLevel) {
+        System.out.println("  ".repeat(nestingLevel) + "+ " + dir.getName());
+        for (File f : dir.listFiles()) {
+            if (f.isFile())
+                System.out.println("  ".repeat(nestingLevel + 1) + "- " + f.getName());
+            else
+                legacyPrintDirectory(f, nestingLevel + 1);
+        }
+    }
+
+    /**
+     * Times writing a tree listing of the specified number of entries,
+     * without walking the file system, with println per line as the
+     * printers used to, and with TreeWriter.
+     */
+    private static void benchmarkRendering(int entries) throws IOException {
+        int dirs = 0;
+        for (int level = 0, count = 1; level <= DEPTH; level++, count *= FANOUT)
+            dirs += count;
+
+        int perDir = (entries - 1) / dirs;   // files per directory, rounded up
+        String[] fileNames = new String[perDir];
+        for (int i = 0; i < perDir; i++)
+            fileNames[i] = "file" + i + ".txt";
+
+        System.out.printf("rendering %,d entries to a file: println per line / TreeWriter / TreeWriter compact%n",
+                          dirs * (perDir + 1));
+
+        Result println = runToFile(() -> legacyRenderDirectory("root", 0, 0, fileNames));
+        Result buffered = runToFile(() -> {
+            TreeWriter out = TreeWriter.toStandardOutput(false);
+            renderDirectory(out, "root", 0, 0, fileNames);
+            out.flush();
+        });
+        Result compact = runToFile(() -> {
+            TreeWriter out = TreeWriter.toStandardOutput(true);
+            renderDirectory(out, "root", 0, 0, fileNames);
+            out.flush();
+        });
+
+        for (Result r : new Result[] { println, buffered, compact })
+            System.out.printf("  %6.2f M entries/s  %6.1f MB/s  %5.1f MB%n",
+                              dirs * (perDir + 1) * 1e3 / r.nanos, r.bytes * 1e3 / r.nanos, r.bytes / 1e6);
+        System.out.println("  (" + (println.sameOutput(buffered) ? "same output" : "OUTPUT DIFFERS") + ")");
+        System.out.println();
+    }
+
+    private static void legacyRenderDirectory(String name, int level, int nestingLevel, String[] fileNames) {
+        System.out.println("  ".repeat(nestingLevel) + "+ " + name);
+        for (String fileName : fileNames)
+            System.out.println("  ".repeat(nestingLevel + 1) + "- " + fileName);
+        if (level < DEPTH) {
+            for (int i = 0; i < FANOUT; i++)
+                legacyRenderDirectory("dir" + i, level + 1, nestingLevel + 1, fileNames);
+        }
+    }
+
+    private static void renderDirectory(TreeWriter out, String name, int level, int nestingLevel, String[] fileNames)
+            throws IOException {
+        out.writeDirectory(nestingLevel, name);
+        for (String fileName : fileNames)
+            out.writeFile(nestingLevel + 1, fileName);
+        if (level < DEPTH) {
+            for (int i = 0; i < FANOUT; i++)
+                renderDirectory(out, "dir" + i, level + 1, nestingLevel + 1, fileNames);
+        }
+    }
+
+    /**
+     * Times a full scan into a DirectorySnapshot against updating the
+     * snapshot, with and without checking every file, when nothing has
+     * changed and when one file has been added to each of ten directories.
+     * The snapshot is taken after the other benchmarks, so no directory was
+     * modified recently enough for its listing to be read again anyway.
+     */
+    private static void benchmarkSnapshot(Path root, int entries) throws IOException {
+        System.out.println("DirectorySnapshot, ns per entry: full scan / update / update checking files");
+
+        Path file = Files.createTempFile("snapshot", ".dat");
+        try {
+            DirectorySnapshot snapshot = null;
+            for (int pass = 1; pass <= 2; pass++) {
+                long start = System.nanoTime();
+                snapshot = DirectorySnapshot.scan(root);
+                long scan = System.nanoTime() - start;
+
+                int[] changes = new int[1];
+                DirectorySnapshot.ChangeListener count = (change, path) -> changes[0]++;
+
+                start = System.nanoTime();
+                snapshot.update(root, false, count);
+                long update = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                snapshot.update(root, true, count);
+                long verify = System.nanoTime() - start;
+
+                System.out.printf("  unchanged:     %7.1f  %7.1f  %7.1f   (%d changes)%n", (double) scan / entries,
+                                  (double) update / entries, (double) verify / entries, changes[0]);
+            }
+
+            List<Path> added = new ArrayList<>();
+            for (int i = 0; i < FANOUT; i++)
+                added.add(Files.createFile(root.resolve("dir" + i).resolve("added.txt")));
+
+            try {
+                int[] changes = new int[1];
+                long start = System.nanoTime();
+                snapshot.update(root, false, (change, path) -> changes[0]++);
+                long update = System.nanoTime() - start;
+                System.out.printf("  %d files added:         %7.1f            (%d changes)%n",
+                                  added.size(), (double) update / entries, changes[0]);
+            } finally {
+                for (Path path : added)
+                    Files.delete(path);
+            }
+
+            snapshot.writeTo(file);
+            System.out.printf("  snapshot file: %,d bytes, %.1f bytes per entry%n",
+                              Files.size(file), (double) Files.size(file) / entries);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Times loading a LiveDirectoryTree, one poll done by walking the tree
+     * with the visitor against printing it from the model, and how long
+     * the model takes to reflect files created and then deleted.
+     */
+    private static void benchmarkLive(Path root, int entries) throws IOException {
+        System.out.println("LiveDirectoryTree");
+
+        long start = System.nanoTime();
+        try (LiveDirectoryTree tree = new LiveDirectoryTree(root)) {
+            System.out.printf("  load and register %,d directories: %.1f ns per entry%n",
+                              tree.getWatchCount(), (double) (System.nanoTime() - start) / entries);
+
+            for (int pass = 1; pass <= 2; pass++) {
+                Result walk = run(() -> Files.walkFileTree(root, new PrintDirectoryStructureVisitor()));
+                Result render = run(() -> {
+                    TreeWriter out = TreeWriter.toStandardOutput(false);
+                    tree.render(out);
+                    out.flush();
+                });
+                System.out.printf("  poll by walking: %7.1f ns per entry, rendering the model: %5.1f   (%s)%n",
+                                  (double) walk.nanos / entries, (double) render.nanos / entries,
+                                  walk.sameOutput(render) ? "same output" : "OUTPUT DIFFERS");
+            }
+
+            List<Path> added = new ArrayList<>();
+            start = System.nanoTime();
+            for (int i = 0; i < FANOUT; i++)
+                added.add(Files.createFile(root.resolve("dir" + i).resolve("added.txt")));
+            long created = awaitEntryCount(tree, entries + added.size()) - start;
+
+            start = System.nanoTime();
+            for (Path path : added)
+                Files.delete(path);
+            long deleted = awaitEntryCount(tree, entries) - start;
+
+            System.out.printf("  %d files created: in the model after %.1f ms; deleted: after %.1f ms%n",
+                              added.size(), created / 1e6, deleted / 1e6);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        System.out.println();
+    }
+
+    /*
+     * Processes events until the tree has the specified number of entries
+     * or ten seconds have passed, and returns the time.
+     */
+    private static long awaitEntryCount(LiveDirectoryTree tree, int count) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (tree.getEntryCount() != count && System.nanoTime() < deadline)
+            tree.processEvents(10, TimeUnit.MILLISECONDS);
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Runs the legacy walker and each printer in a child JVM under
+     * "strace -f -c" and reports the number of stat, open, and directory
+     * read system calls per entry.  Does nothing if strace is not installed.
+     */
+    private static void countSyscalls(Path root, int entries) throws IOException {
+        String[][] modes = {
+            { "legacy File walker", BenchmarkPrintDirectory.class.getName(), "-legacy" },
+            { "PrintDirectoryStructure", PrintDirectoryStructure.class.getName() },
+            { "PrintDirectoryStructureVisitor", PrintDirectoryStructureVisitor.class.getName() },
+        };
+
+        System.out.println("file system calls (stat, open, getdents) per entry, from strace -c");
+
+        for (String[] mode : modes) {
+            Path summary = Files.createTempFile("strace", ".txt");
+            try {
+                List<String> command = new ArrayList<>(List.of(
+                    "strace", "-f", "-c", "-o", summary.toString(),
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), mode[1]));
+                command.addAll(Arrays.asList(mode).subList(2, mode.length));
+                command.add(root.toString());
+
+                Process process;
+                try {
+                    process = new ProcessBuilder(command)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                        .redirectError(ProcessBuilder.Redirect.DISCARD)
+                        .start();
+                } catch (IOException e) {
+                    System.out.println("  strace is not available; skipped");
+                    break;
+                }
+
+                try {
+                    process.waitFor();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                long calls = 0;
+                for (String line : Files.readAllLines(summary)) {
+                    // % time, seconds, usecs/call, calls, [errors,] syscall
+                    String[] fields = line.trim().split("\\s+");
+                    String name = fields[fields.length - 1];
+                    if (fields.length >= 5 && fields[3].matches("\\d+")
+                            && (name.contains("stat") || name.startsWith("open") || name.startsWith("getdents")))
+                        calls += Long.parseLong(fields[3]);
+                }
+                System.out.printf("  %-32s %6.2f%n", mode[0] + ":", (double) calls / entries);
+            } finally {
+                Files.deleteIfExists(summary);
+            }
+        }
+        System.out.println();
+    }
+
+    /**
+     * A printer to be timed.
+     */
+    private interface Printer {
+        void print() throws IOException;
+    }
+
+    /**
+     * The time taken by a run and a checksum of what it printed.
+     */
+    private static class Result {
+        final long nanos;
+        final long bytes;
+        final long checksum;
+
+        Result(long nanos, long bytes, long checksum) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.checksum = checksum;
+        }
+
+        boolean sameOutput(Result other) {
+            return bytes == other.bytes && checksum == other.checksum;
+        }
+    }
+
+    /**
+     * Runs the printer with standard output going to a checksumming stream.
+     */
+    private static Result run(Printer printer) {
+        PrintStream stdout = System.out;
+        CRC32 crc = new CRC32();
+        CountingOutputStream counter = new CountingOutputStream(new CheckedOutputStream(OutputStream.nullOutputStream(), crc));
+
+        long start;
+        long time;
+        System.setOut(new PrintStream(counter, false));
+        try {
+            start = System.nanoTime();
+            printer.print();
+            System.out.flush();
+            time = System.nanoTime() - start;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            System.setOut(stdout);
+        }
+
+        return new Result(time, counter.count, crc.getValue());
+    }
+
+    /**
+     * Runs the printer with standard output going to a temporary file
+     * through an autoflushing PrintStream with a small buffer, like the
+     * System.out that the JDK sets up for a file descriptor.
+     */
+    private static Result runToFile(Printer printer) throws IOException {
+        PrintStream stdout = System.out;
+        Path file = Files.createTempFile("printdir", ".txt");
+        try {
+            long time;
+            try (PrintStream fileOut = new PrintStream(new BufferedOutputStream(new FileOutputStream(file.toFile()), 128),
+                                                       true)) {
+                System.setOut(fileOut);
+                long start = System.nanoTime();
+                printer.print();
+                System.out.flush();
+                time = System.nanoTime() - start;
+            } finally {
+                System.setOut(stdout);
+            }
+
+            CRC32 crc = new CRC32();
+            long bytes = 0;
+            try (InputStream in = new CheckedInputStream(Files.newInputStream(file), crc)) {
+                byte[] buffer = new byte[1 << 16];
+                for (int n; (n = in.read(buffer)) > 0; )
+                    bytes += n;
+            }
+            return new Result(time, bytes, crc.getValue());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * An output stream that counts the bytes written through it.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    /**
+     * Creates FANOUT subdirectories per directory, DEPTH levels deep, and
+     * spreads the files evenly over all of the directories.  Returns the
+     * number of entries (files and directories, including the root).
+     */
+    private static int createTree(Path root, int files) throws IOException {
+        int dirs = 0;
+        for (int level = 0, count = 1; level <= DEPTH; level++, count *= FANOUT)
+            dirs += count;
+
+        int[] remaining = { files };
+        int perDir = (files + dirs - 1) / dirs;
+        createDirectory(root, 0, perDir, remaining);
+        return dirs + files;
+    }
+
+    private static void createDirectory(Path dir, int level, int perDir, int[] remaining) throws IOException {
+        for (int i = 0; i < perDir && remaining[0] > 0; i++, remaining[0]--)
+            Files.createFile(dir.resolve("file" + i + ".txt"));
+
+        if (level < DEPTH) {
+            for (int i = 0; i < FANOUT; i++) {
+                Path sub = Files.createDirectory(dir.resolve("dir" + i));
+                createDirectory(sub, level + 1, perDir, remaining);
+            }
+        }
+    }
+
+    private static void deleteTree(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+                if (e != null)
+                    throw e;
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
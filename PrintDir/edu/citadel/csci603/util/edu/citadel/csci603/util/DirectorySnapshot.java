@@ -0,0 +1,380 @@
+package edu.citadel.csci603.util;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An index of a directory tree that records the size and modification time
+ * of every entry and, for each directory, a hash of its listing.  A snapshot
+ * can be saved to a file and compared with the tree later to find the
+ * entries that were added, removed, or modified in the meantime.
+ * <p>
+ * The comparison reads a directory's listing again only if the directory's
+ * modification time has changed, since adding, removing, or renaming an
+ * entry always updates it; every directory is still stat'ed, because a
+ * change deep in the tree does not update the times of the directories
+ * above it.  Writing to a file in place does not update its directory, so
+ * files in unchanged directories are compared only if checkFiles is set,
+ * which costs one stat per file.  A directory modified within MTIME_SLACK
+ * of the time the snapshot was taken is always listed again, since a
+ * change made later in the same clock tick would not show in its time.
+ * <p>
+ * The snapshot file holds the tree depth first, with each entry's name
+ * relative to its directory, compressed with GZIP.
+ */
+public class DirectorySnapshot {
+    private static final int MAGIC = 0x44495253;   // "DIRS"
+    private static final int VERSION = 1;
+    private static final long MTIME_SLACK = TimeUnit.SECONDS.toNanos(2);   // FAT's granularity
+
+    public enum Change { ADDED, REMOVED, MODIFIED }
+
+    /**
+     * Receives the changes found by update(), in depth-first name order.
+     * An added or removed directory is reported once, with a trailing
+     * separator, rather than once per entry beneath it.
+     */
+    @FunctionalInterface
+    public interface ChangeListener {
+        void changed(Change change, String path) throws IOException;
+    }
+
+    private final String root;    // absolute path of the top entry
+    private final long scanTime;  // when the scan started, in ns since the epoch
+    private final Entry top;
+
+    /*
+     * A file or directory.  The children of a directory are sorted by name.
+     */
+    private static class Entry {
+        final String name;
+        final boolean directory;
+        final long size;
+        final long mtime;         // in ns since the epoch
+        final long listingHash;   // directories only
+        final Entry[] children;   // directories only
+
+        Entry(String name, long size, long mtime) {
+            this.name = name;
+            this.directory = false;
+            this.size = size;
+            this.mtime = mtime;
+            this.listingHash = 0;
+            this.children = null;
+        }
+
+        Entry(String name, long mtime, Entry[] children) {
+            this.name = name;
+            this.directory = true;
+            this.size = 0;
+            this.mtime = mtime;
+            this.listingHash = listingHash(children);
+            this.children = children;
+        }
+    }
+
+    private DirectorySnapshot(String root, long scanTime, Entry top) {
+        this.root = root;
+        this.scanTime = scanTime;
+        this.top = top;
+    }
+
+    /**
+     * Walks the tree at the specified path and returns its snapshot.
+     */
+    public static DirectorySnapshot scan(Path path) throws IOException {
+        long scanTime = now();
+        Entry top = read(path, getName(path));
+        if (top == null)
+            throw new NoSuchFileException(path.toString());
+
+        return new DirectorySnapshot(absolute(path), scanTime, top);
+    }
+
+    /**
+     * Compares this snapshot with the tree at the specified path, which
+     * must be the one the snapshot was taken of, reports the differences
+     * to the listener, and returns a snapshot of the tree as it is now.
+     * If checkFiles is set, every file is stat'ed; otherwise only the files
+     * in directories whose listings have changed.
+     */
+    public DirectorySnapshot update(Path path, boolean checkFiles, ChangeListener listener) throws IOException {
+        if (!absolute(path).equals(root))
+            throw new IOException("the snapshot is of " + root + ", not " + path);
+
+        long now = now();
+        Entry newTop = update(path, top, checkFiles, listener);
+        if (newTop == null)
+            throw new NoSuchFileException(path.toString());
+
+        return new DirectorySnapshot(root, now, newTop);
+    }
+
+    /**
+     * Returns the snapshot of the entry at path, which was the old entry
+     * when this snapshot was taken, or null if it no longer exists.
+     */
+    private Entry update(Path path, Entry old, boolean checkFiles, ChangeListener listener) throws IOException {
+        BasicFileAttributes attrs = readAttributes(path);
+        if (attrs == null) {
+            report(listener, Change.REMOVED, path, old);
+            return null;
+        }
+
+        if (attrs.isDirectory() != old.directory) {
+            report(listener, Change.REMOVED, path, old);
+            Entry entry = read(path, old.name, attrs);
+            report(listener, Change.ADDED, path, entry);
+            return entry;
+        }
+
+        if (!old.directory) {
+            Entry entry = new Entry(old.name, attrs.size(), mtime(attrs));
+            if (entry.size == old.size && entry.mtime == old.mtime)
+                return old;
+
+            listener.changed(Change.MODIFIED, path.toString());
+            return entry;
+        }
+
+        // the old listing is still valid if the directory has not been modified since it was read
+        boolean listingValid = mtime(attrs) == old.mtime && old.mtime < scanTime - MTIME_SLACK;
+        String[] names = listingValid ? null : list(path);
+
+        List<Entry> children = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < old.children.length || (names != null && j < names.length)) {
+            int cmp;
+            if (names == null)
+                cmp = 0;
+            else if (i == old.children.length)
+                cmp = 1;
+            else if (j == names.length)
+                cmp = -1;
+            else
+                cmp = old.children[i].name.compareTo(names[j]);
+
+            Entry entry;
+            if (cmp < 0) {
+                Entry child = old.children[i++];
+                report(listener, Change.REMOVED, path.resolve(child.name), child);
+                entry = null;
+            } else if (cmp > 0) {
+                Path childPath = path.resolve(names[j]);
+                entry = read(childPath, names[j++]);
+                if (entry != null)
+                    report(listener, Change.ADDED, childPath, entry);
+            } else {
+                Entry child = old.children[i++];
+                j++;
+                if (listingValid && !child.directory && !checkFiles)
+                    entry = child;
+                else
+                    entry = update(path.resolve(child.name), child, checkFiles, listener);
+            }
+
+            if (entry != null)
+                children.add(entry);
+        }
+
+        return new Entry(old.name, mtime(attrs), children.toArray(new Entry[0]));
+    }
+
+    private static void report(ChangeListener listener, Change change, Path path, Entry entry) throws IOException {
+        String name = path.toString();
+        if (entry.directory)
+            name += path.getFileSystem().getSeparator();
+
+        listener.changed(change, name);
+    }
+
+    /**
+     * Writes the tree as of this snapshot, as PrintDirectoryStructure
+     * prints it but with the entries of each directory sorted by name.
+     * The first line is the specified path, which should be the one the
+     * snapshot was taken of, as given rather than as an absolute path, so
+     * that it matches printTree() and the paths reported by update().
+     * Does not touch the file system.
+     */
+    public void print(Path path, TreeWriter out) throws IOException {
+        out.writeRoot(path.toString());
+        print(top, 0, out);
+    }
+
+    private static void print(Entry entry, int nestingLevel, TreeWriter out) throws IOException {
+        if (!entry.directory) {
+            out.writeFile(nestingLevel, entry.name);
+            return;
+        }
+
+        out.writeDirectory(nestingLevel, entry.name);
+        for (Entry child : entry.children)
+            print(child, nestingLevel + 1, out);
+    }
+
+    /**
+     * Saves this snapshot in the specified file, replacing it atomically
+     * where the file system allows.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(temp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(root);
+            out.writeLong(scanTime);
+            write(top, out);
+        }
+
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void write(Entry entry, DataOutput out) throws IOException {
+        out.writeUTF(entry.name);
+        out.writeBoolean(entry.directory);
+        out.writeLong(entry.mtime);
+
+        if (!entry.directory)
+            out.writeLong(entry.size);
+        else {
+            out.writeLong(entry.listingHash);
+            out.writeInt(entry.children.length);
+            for (Entry child : entry.children)
+                write(child, out);
+        }
+    }
+
+    /**
+     * Loads a snapshot saved by writeTo().
+     *
+     * @throws IOException if the file is not a snapshot or is damaged.
+     */
+    public static DirectorySnapshot readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                 new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException(file + " is not a directory snapshot");
+
+            String root = in.readUTF();
+            long scanTime = in.readLong();
+            return new DirectorySnapshot(root, scanTime, read(in, file));
+        }
+    }
+
+    private static Entry read(DataInput in, Path file) throws IOException {
+        String name = in.readUTF();
+        boolean directory = in.readBoolean();
+        long mtime = in.readLong();
+
+        if (!directory)
+            return new Entry(name, in.readLong(), mtime);
+
+        long listingHash = in.readLong();
+        Entry[] children = new Entry[in.readInt()];
+        for (int i = 0; i < children.length; i++)
+            children[i] = read(in, file);
+
+        Entry entry = new Entry(name, mtime, children);
+        if (entry.listingHash != listingHash)
+            throw new IOException(file + " is damaged");
+
+        return entry;
+    }
+
+    /*
+     * Returns the snapshot of the entry at path, or null if it does not exist.
+     */
+    private static Entry read(Path path, String name) throws IOException {
+        BasicFileAttributes attrs = readAttributes(path);
+        return (attrs == null) ? null : read(path, name, attrs);
+    }
+
+    private static Entry read(Path path, String name, BasicFileAttributes attrs) throws IOException {
+        if (!attrs.isDirectory())
+            return new Entry(name, attrs.size(), mtime(attrs));
+
+        List<Entry> children = new ArrayList<>();
+        for (String childName : list(path)) {
+            Entry child = read(path.resolve(childName), childName);
+            if (child != null)
+                children.add(child);
+        }
+
+        return new Entry(name, mtime(attrs), children.toArray(new Entry[0]));
+    }
+
+    /*
+     * Returns the names in a directory, sorted.
+     */
+    private static String[] list(Path dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path child : stream)
+                names.add(child.getFileName().toString());
+        }
+
+        String[] rtnval = names.toArray(new String[0]);
+        Arrays.sort(rtnval);
+        return rtnval;
+    }
+
+    /*
+     * Reads the attributes of a path, following symbolic links, or of the
+     * link itself if its target does not exist.  Returns null if there is
+     * nothing at the path.
+     */
+    private static BasicFileAttributes readAttributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            try {
+                return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+            } catch (NoSuchFileException e2) {
+                return null;
+            }
+        }
+    }
+
+    /*
+     * 64-bit FNV-1a hash of the names and types of a directory's entries.
+     */
+    private static long listingHash(Entry[] children) {
+        long hash = 0xcbf29ce484222325L;
+        for (Entry child : children) {
+            for (int i = 0; i < child.name.length(); i++)
+                hash = (hash ^ child.name.charAt(i)) * 0x100000001b3L;
+            hash = (hash ^ (child.directory ? '/' : 0)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private static long mtime(BasicFileAttributes attrs) {
+        return attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+    }
+
+    private static long now() {
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    }
+
+    private static String absolute(Path path) {
+        return path.toAbsolutePath().normalize().toString();
+    }
+
+    private static String getName(Path path) {
+        Path name = path.getFileName();
+        return (name == null) ? "" : name.toString();
+    }
+}
@@ -0,0 +1,299 @@
+package edu.citadel.csci603.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * An in-memory model of a directory tree that is kept up to date with a
+ * WatchService.  The tree is walked once, the way PrintDirectoryStructureVisitor
+ * walks it, and every directory is registered with the watch service;
+ * after that processEvents() applies the create, delete, and modify events
+ * to the model, so render() writes the current tree, in the visitor's
+ * format, without touching the file system.
+ * <p>
+ * A created directory is walked and registered when its event arrives.
+ * When a directory's events overflow, only that directory's listing is
+ * read again, since each subdirectory has a watch of its own and gets an
+ * overflow event of its own if it lost any.  Entries keep the order in
+ * which they were found; new entries go at the end of their directory.
+ * <p>
+ * The model is safe to render from one thread while another processes
+ * events.  Watch services may use polling and report events late on some
+ * platforms, and an entry created in a new directory before the directory
+ * is registered is found by the walk of that directory instead.
+ */
+public class LiveDirectoryTree implements Closeable {
+    private final WatchService watcher;
+    private final Map<WatchKey, Node> watched = new HashMap<>();
+    private final Node top;
+    private int entryCount;
+
+    /*
+     * A file or directory; children are kept in the order they were found.
+     */
+    private static class Node {
+        final Path path;
+        final String name;
+        final Map<String, Node> children;   // null for a file
+        WatchKey key;
+
+        Node(Path path, boolean directory) {
+            this.path = path;
+            this.name = String.valueOf(path.getFileName());
+            this.children = directory ? new LinkedHashMap<>() : null;
+        }
+
+        boolean isDirectory() {
+            return children != null;
+        }
+    }
+
+    /*
+     * Builds the nodes for a subtree and registers its directories.
+     * Entries that disappear during the walk are left out.
+     */
+    private class Loader extends SimpleFileVisitor<Path> {
+        private final Deque<Node> parents = new ArrayDeque<>();
+        private Node top;
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes bfAttrs) {
+            add(new Node(file, bfAttrs.isDirectory()));
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes bfAttrs) throws IOException {
+            Node node = new Node(dir, true);
+            add(node);
+            register(node);
+            parents.push(node);
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+            parents.pop();
+            if (e == null || e instanceof NoSuchFileException)
+                return FileVisitResult.CONTINUE;
+            else
+                throw e;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+            if (e instanceof NoSuchFileException)
+                return FileVisitResult.CONTINUE;
+            else
+                throw e;
+        }
+
+        private void add(Node node) {
+            if (parents.isEmpty())
+                top = node;
+            else
+                parents.peek().children.put(node.name, node);
+            entryCount++;
+        }
+    }
+
+    /**
+     * Walks the directory at the specified path and starts watching it.
+     *
+     * @throws NotDirectoryException if the path is not a directory.
+     */
+    public LiveDirectoryTree(Path dir) throws IOException {
+        if (!Files.isDirectory(dir, LinkOption.NOFOLLOW_LINKS))
+            throw new NotDirectoryException(dir.toString());
+
+        watcher = dir.getFileSystem().newWatchService();
+        try {
+            top = load(dir);
+        } catch (IOException e) {
+            watcher.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Waits up to the specified time for events, then applies those and
+     * all other pending events to the model.  Returns true if the tree
+     * changed; modifying a file only changes its contents, so a modify
+     * event changes the tree only if the entry was missing or has changed
+     * between file and directory.
+     */
+    public boolean processEvents(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        boolean changed = false;
+        for (WatchKey key = watcher.poll(timeout, unit); key != null; key = watcher.poll())
+            changed |= processKey(key);
+
+        return changed;
+    }
+
+    private synchronized boolean processKey(WatchKey key) throws IOException {
+        Node dir = watched.get(key);
+        boolean changed = false;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (dir == null)
+                continue;   // the directory was removed from the model
+
+            if (event.kind() == OVERFLOW)
+                changed |= rescan(dir);
+            else if (event.kind() == ENTRY_DELETE)
+                changed |= remove(dir, event.context().toString());
+            else
+                changed |= refresh(dir, event.context().toString());
+        }
+
+        if (!key.reset())
+            watched.remove(key);
+
+        return changed;
+    }
+
+    /*
+     * Brings the named entry of dir in line with the file system.
+     */
+    private boolean refresh(Node dir, String name) throws IOException {
+        Path path = dir.path.resolve(name);
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return remove(dir, name);
+        }
+
+        Node node = dir.children.get(name);
+        if (node != null && node.isDirectory() == attrs.isDirectory())
+            return false;
+
+        if (node != null)
+            remove(dir, name);
+
+        node = attrs.isDirectory() ? load(path) : new Node(path, false);
+        if (node == null)
+            return false;
+        if (!attrs.isDirectory())
+            entryCount++;
+
+        dir.children.put(name, node);
+        return true;
+    }
+
+    /*
+     * Reads the listing of dir again after its events overflowed.
+     */
+    private boolean rescan(Node dir) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.path)) {
+            for (Path child : stream)
+                names.add(child.getFileName().toString());
+        } catch (NoSuchFileException e) {
+            return false;   // its parent will get the delete event
+        }
+
+        Set<String> present = new HashSet<>(names);
+        boolean changed = false;
+        for (String name : new ArrayList<>(dir.children.keySet())) {
+            if (!present.contains(name))
+                changed |= remove(dir, name);
+        }
+        for (String name : names)
+            changed |= refresh(dir, name);
+
+        return changed;
+    }
+
+    private boolean remove(Node dir, String name) {
+        Node node = dir.children.remove(name);
+        if (node == null)
+            return false;
+
+        unregister(node);
+        return true;
+    }
+
+    /*
+     * Cancels the watches of a removed subtree.
+     */
+    private void unregister(Node node) {
+        entryCount--;
+        if (!node.isDirectory())
+            return;
+
+        if (node.key != null) {
+            node.key.cancel();
+            watched.remove(node.key);
+        }
+        for (Node child : node.children.values())
+            unregister(child);
+    }
+
+    private Node load(Path path) throws IOException {
+        Loader loader = new Loader();
+        Files.walkFileTree(path, loader);
+        return loader.top;
+    }
+
+    private void register(Node dir) throws IOException {
+        try {
+            dir.key = dir.path.register(watcher, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            watched.put(dir.key, dir);
+        } catch (NoSuchFileException e) {
+            // removed before it could be watched; its parent will get the delete event
+        }
+    }
+
+    /**
+     * Writes the tree as PrintDirectoryStructureVisitor prints it, from the
+     * model alone.
+     */
+    public synchronized void render(TreeWriter out) throws IOException {
+        render(top, 0, out);
+    }
+
+    private static void render(Node node, int nestingLevel, TreeWriter out) throws IOException {
+        if (!node.isDirectory()) {
+            out.writeFile(nestingLevel, node.name);
+            return;
+        }
+
+        out.writeDirectory(nestingLevel, node.name);
+        for (Node child : node.children.values())
+            render(child, nestingLevel + 1, out);
+    }
+
+    /**
+     * Returns the number of files and directories in the tree, including
+     * the top directory.
+     */
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the number of directories being watched.
+     */
+    public synchronized int getWatchCount() {
+        return watched.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        watcher.close();
+    }
+}
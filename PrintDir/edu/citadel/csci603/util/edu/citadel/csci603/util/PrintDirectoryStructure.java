@@ -1,63 +1,283 @@
 package edu.citadel.csci603.util;
 
 import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Utility class that prints the directory structure to standard output
  * showing the composition of nested files and subdirectories.
+ * <p>
+ * Each directory is read with a DirectoryStream, and each entry's type
+ * comes from a single readAttributes() call, so every entry costs exactly
+ * one attribute read on every platform, the same as the isFile() call of
+ * the java.io.File version it replaced.  The attributes that some listings
+ * carry (such as on Windows) are not used, since readAttributes() always
+ * asks the file system again.  The system call counts of the two versions
+ * have not been measured yet; see BenchmarkPrintDirectory.
+ * <p>
+ * With the -parallel option the subdirectories are listed on a pool of
+ * worker threads, which helps when each listing or stat blocks on a slow
+ * (for example network-mounted) file system.  The output is identical to
+ * the sequential output.
+ * <p>
+ * The listing is written through a TreeWriter, which buffers it and
+ * flushes once at the end instead of once per line; the -compact option
+ * indents each level by one space instead of two.
+ * <p>
+ * With the -snapshot option the tree is printed and saved in the specified
+ * snapshot file the first time; later runs print only the entries added
+ * (A), removed (D), or modified (M) since the previous run and update the
+ * snapshot, listing again only the directories whose modification times
+ * have changed.  Files modified in place are found only with -verify,
+ * which stats every file (see DirectorySnapshot).
  */
 public class PrintDirectoryStructure {
     /**
-     * Prints the structure for the file whose path name is given in arg[0].
+     * Prints the structure for the file whose path name is given in the
+     * last argument, optionally preceded by "-compact" and by either
+     * "-parallel" and a number of worker threads or "-snapshot" and the
+     * path of a snapshot file, optionally followed by "-verify".
      */
-    public static void main(String[] args) {
-        if (args.length != 1) {
+    public static void main(String[] args) throws IOException {
+        int workers = 0;
+        boolean compact = false;
+        String snapshotName = null;
+        boolean verify = false;
+        boolean valid = args.length > 0;
+
+        for (int i = 0; valid && i < args.length - 1; i++) {
+            if (args[i].equals("-compact"))
+                compact = true;
+            else if (args[i].equals("-parallel") && i + 1 < args.length - 1) {
+                try {
+                    workers = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException e) {
+                    workers = -1;
+                }
+                valid = workers > 0;
+            }
+            else if (args[i].equals("-snapshot") && i + 1 < args.length - 1)
+                snapshotName = args[++i];
+            else if (args[i].equals("-verify"))
+                verify = true;
+            else
+                valid = false;
+        }
+
+        if (snapshotName != null ? workers > 0 : verify)
+            valid = false;
+
+        if (!valid) {
             printUsage();
             System.exit(-1);
         }
 
-        String pathName = args[0];
-        File file = new File(pathName);
+        String pathName = args[args.length - 1];
+        Path path = Paths.get(pathName);
 
-        if (file.exists())
-            printTree(file);
-        else
+        if (!Files.exists(path)) {
             System.out.println("*** File " + pathName + " does not exist. ***");
+            return;
+        }
+
+        TreeWriter out = TreeWriter.toStandardOutput(compact);
+        try {
+            if (snapshotName != null)
+                printChanges(path, Paths.get(snapshotName), verify, out);
+            else if (workers > 0)
+                printTreeParallel(path, workers, out);
+            else
+                printTree(path, out);
+        } finally {
+            out.flush();
+        }
+    }
+
+    public static void printTree(Path path) throws IOException {
+        TreeWriter out = TreeWriter.toStandardOutput(false);
+        try {
+            printTree(path, out);
+        } finally {
+            out.flush();
+        }
     }
 
-    public static void printTree(File file) {
-        System.out.println(file.getPath());
-        if(file.isFile())
-            printFile(file, -1);
+    /**
+     * Writes the structure to the specified tree writer, without flushing it.
+     */
+    public static void printTree(Path path, TreeWriter out) throws IOException {
+        out.writeRoot(path.toString());
+        if (isDirectory(path))
+            printDirectory(path, 0, out);
         else
-            printDirectory(file, -1);
+            out.writeFile(0, getName(path));
     }
 
-    private static void printDirectory(File dir, int nestingLevel) {
-        System.out.println(getIndentString(++nestingLevel) + "+ " + dir.getName());
-        for (File f : dir.listFiles()) {
-            if(f.isFile())
-                printFile(f, nestingLevel);
-            else
-                printDirectory(f, nestingLevel);
+    public static void printTreeParallel(Path path, int workers) throws IOException {
+        TreeWriter out = TreeWriter.toStandardOutput(false);
+        try {
+            printTreeParallel(path, workers, out);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes the same output as printTree(path, out), but walks the
+     * subdirectories in parallel on a ForkJoinPool with the specified
+     * number of worker threads, one task per subdirectory.
+     */
+    public static void printTreeParallel(Path path, int workers, TreeWriter out) throws IOException {
+        out.writeRoot(path.toString());
+        if (!isDirectory(path)) {
+            out.writeFile(0, getName(path));
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            pool.invoke(new DirectoryTask(path, 0, out));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * If the snapshot file does not exist, writes the structure with the
+     * entries of each directory sorted by name and saves it in the snapshot
+     * file.  Otherwise writes one line for each entry added, removed, or
+     * modified since the snapshot was saved, and saves the new snapshot.
+     */
+    public static void printChanges(Path path, Path snapshotFile, boolean checkFiles, TreeWriter out)
+            throws IOException {
+        DirectorySnapshot snapshot;
+        if (!Files.exists(snapshotFile)) {
+            snapshot = DirectorySnapshot.scan(path);
+            snapshot.print(path, out);
+        } else {
+            snapshot = DirectorySnapshot.readFrom(snapshotFile).update(path, checkFiles,
+                (change, name) -> out.writeLine(getMarker(change) + name));
         }
+        snapshot.writeTo(snapshotFile);
     }
 
-    private static void printFile(File file, int nestingLevel) {
-        System.out.println(getIndentString(++nestingLevel) + "- " + file.getName());
+    private static String getMarker(DirectorySnapshot.Change change) {
+        switch (change) {
+            case ADDED:   return "A ";
+            case REMOVED: return "D ";
+            default:      return "M ";
+        }
     }
 
-    private static String getIndentString(int nestingLevel) {
-        StringBuilder s = new StringBuilder();
+    /**
+     * Lists one directory, forks a task for each of its subdirectories, and
+     * then writes the output for the directory's subtree from its own
+     * entries and the subtasks' results, in listing order.  The task for
+     * the top directory writes to the caller's tree writer as soon as each
+     * entry or subtree and everything before it is ready; the others write
+     * into a CharArrayWriter that they return to their parent.
+     */
+    private static class DirectoryTask extends RecursiveTask<CharArrayWriter> {
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+        private final int nestingLevel;
+        private final boolean compact;
+        private final transient TreeWriter sink;   // null except for the top task
+
+        DirectoryTask(Path dir, int nestingLevel, TreeWriter sink) {
+            this.dir = dir;
+            this.nestingLevel = nestingLevel;
+            this.compact = sink.isCompact();
+            this.sink = sink;
+        }
+
+        DirectoryTask(Path dir, int nestingLevel, boolean compact) {
+            this.dir = dir;
+            this.nestingLevel = nestingLevel;
+            this.compact = compact;
+            this.sink = null;
+        }
+
+        @Override
+        protected CharArrayWriter compute() {
+            CharArrayWriter text = (sink == null) ? new CharArrayWriter() : null;
+            TreeWriter out = (sink == null) ? new TreeWriter(text, compact) : sink;
+
+            try {
+                out.writeDirectory(nestingLevel, getName(dir));
 
-        for (int i = 0; i < nestingLevel; i++)
-            s.append("  ");
+                // start every subdirectory before waiting for any of them
+                List<Path> children = new ArrayList<>();
+                List<DirectoryTask> subtasks = new ArrayList<>();
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (Path child : stream) {
+                        DirectoryTask subtask = null;
+                        if (isDirectory(child)) {
+                            subtask = new DirectoryTask(child, nestingLevel + 1, compact);
+                            subtask.fork();
+                        }
+                        children.add(child);
+                        subtasks.add(subtask);
+                    }
+                }
 
-        return s.toString();
+                for (int i = 0; i < children.size(); i++) {
+                    if (subtasks.get(i) == null)
+                        out.writeFile(nestingLevel + 1, getName(children.get(i)));
+                    else
+                        out.write(subtasks.get(i).join());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            return text;
+        }
+    }
+
+    private static void printDirectory(Path dir, int nestingLevel, TreeWriter out) throws IOException {
+        out.writeDirectory(nestingLevel, getName(dir));
+        try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+            for (Path child : children) {
+                if (isDirectory(child))
+                    printDirectory(child, nestingLevel + 1, out);
+                else
+                    out.writeFile(nestingLevel + 1, getName(child));
+            }
+        }
+    }
+
+    /*
+     * Reads the attributes of a path with one call, following symbolic
+     * links.  A link whose target does not exist is printed as a file.
+     */
+    private static boolean isDirectory(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class).isDirectory();
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /*
+     * Returns the last element of a path, or "" for a root directory,
+     * matching File.getName().
+     */
+    private static String getName(Path path) {
+        Path name = path.getFileName();
+        return (name == null) ? "" : name.toString();
     }
 
     private static void printUsage() {
-        System.out.println("Usage: edu.citadel.csis603.(<path>)");
+        System.out.println("Usage: edu.citadel.csis603.([-compact] [-parallel <workers> | -snapshot <file> [-verify]] <path>)");
         System.out.println("    where <path> is the path of a file or directory");
         System.out.println();
     }
@@ -1,82 +1,164 @@
 package edu.citadel.csci603.util;
 
-import java.io.File;
 import java.nio.file.*;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import static java.nio.file.FileVisitResult.*;
 
 /**
  * Utility class that prints the directory structure to standard output
- * showing the composition of nested files and subdirectories.
+ * showing the composition of nested files and subdirectories.  The
+ * listing is written through a TreeWriter, which is flushed when the
+ * walk returns to the starting file.
+ * <p>
+ * With the -live option the tree is loaded into a LiveDirectoryTree and
+ * printed, and then printed again from memory whenever a WatchService
+ * reports that it has changed, until the program is interrupted.
  */
 public class PrintDirectoryStructureVisitor extends SimpleFileVisitor<Path> {
 
+    private final TreeWriter out;
     private int nestingLevel = 0;
+
+    /**
+     * Constructs a visitor that prints to standard output through a buffer,
+     * which is flushed when the walk returns to the starting file or fails.
+     */
+    public PrintDirectoryStructureVisitor() {
+        this(TreeWriter.toStandardOutput(false));
+    }
+
     /**
-     * Prints the structure for the file whose path name is given in arg[0].
+     * Constructs a visitor that writes to the specified tree writer.
      */
-    public static void main(String[] args) throws IOException {
-        if (args.length != 1) {
+    public PrintDirectoryStructureVisitor(TreeWriter out) {
+        this.out = out;
+    }
+
+    /**
+     * Prints the structure for the file whose path name is given in the
+     * last argument, optionally preceded by "-compact" and "-live".
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        boolean compact = false;
+        boolean live = false;
+        boolean valid = args.length > 0;
+
+        for (int i = 0; valid && i < args.length - 1; i++) {
+            if (args[i].equals("-compact"))
+                compact = true;
+            else if (args[i].equals("-live"))
+                live = true;
+            else
+                valid = false;
+        }
+
+        if (!valid) {
             printUsage();
             System.exit(-1);
         }
 
-        String pathName = args[0];
+        String pathName = args[args.length - 1];
         Path startingDir = Paths.get(pathName);
 
-        PrintDirectoryStructureVisitor vis = new PrintDirectoryStructureVisitor();
-        Files.walkFileTree(startingDir, vis);
+        TreeWriter out = TreeWriter.toStandardOutput(compact);
+        if (live) {
+            printLive(startingDir, out);
+            return;
+        }
+
+        PrintDirectoryStructureVisitor vis = new PrintDirectoryStructureVisitor(out);
+        try {
+            Files.walkFileTree(startingDir, vis);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /*
+     * Prints the tree, then prints it again, after a blank line, each time
+     * it changes.  Never returns normally.
+     */
+    private static void printLive(Path dir, TreeWriter out) throws IOException, InterruptedException {
+        try (LiveDirectoryTree tree = new LiveDirectoryTree(dir)) {
+            tree.render(out);
+            out.flush();
+
+            while (true) {
+                if (tree.processEvents(1, TimeUnit.SECONDS)) {
+                    out.writeLine("");
+                    tree.render(out);
+                    out.flush();
+                }
+            }
+        }
     }
 
     /*
      * Prints the current file with the current nestingLevel value and continues walk.
-     * Doesn't currently use the BasicFileAttributes arg, might consider removing param
-     * and removing override.
+     * The walk does not follow symbolic links, so a link is visited here, and printed
+     * as a file, even if its target is a directory.
      */
     @Override
-    public FileVisitResult visitFile(Path file, BasicFileAttributes bfAttrs) {
-        System.out.println(getIndentString(nestingLevel) + "- " +
-                file.getFileName());
+    public FileVisitResult visitFile(Path file, BasicFileAttributes bfAttrs) throws IOException {
+        out.writeFile(nestingLevel, getName(file));
+
+        if (nestingLevel == 0)
+            out.flush();
         return CONTINUE;
     }
 
     /*
      * Before visiting the dir, increments the nestingLevel and prints the dir name.
-     * Doesn't currently use the BasicFileAttributes arg, might consider removing param
-     * and removing override.    */
+     * Needs nothing from the BasicFileAttributes arg beyond the fact that the walk
+     * reports dir as a directory.
+     */
     @Override
-    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes bfAttrs) {
-        System.out.println(getIndentString(nestingLevel++) + "+ " +
-                dir.getFileName());
+    public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes bfAttrs) throws IOException {
+        out.writeDirectory(nestingLevel++, getName(dir));
         return CONTINUE;
     }
 
     /*
-     * After visiting the dir, decrements the nestingLevel and continues the walk
+     * After visiting the dir, decrements the nestingLevel and continues the walk;
+     * flushes the output when the walk is done or has failed
      */
     @Override
     public FileVisitResult postVisitDirectory(Path dir, IOException e)
             throws IOException
     {
         if(e == null) {
-            nestingLevel--;
-        } else throw e;
+            if (--nestingLevel == 0)
+                out.flush();
+        } else {
+            out.flush();
+            throw e;
+        }
 
         return CONTINUE;
     }
 
-    // Use inherited implementation for method visitFileFailed()
+    /*
+     * Ends the walk as the inherited implementation does, by rethrowing the
+     * exception, after flushing what has been printed so far.
+     */
+    @Override
+    public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+        out.flush();
+        throw e;
+    }
 
-    private static String getIndentString(int nestingLevel) {
-        StringBuilder s = new StringBuilder();
-        for (int i = 0; i < nestingLevel; i++)
-            s.append("  ");
-        return s.toString();
+    /*
+     * Returns the last element of a path as println used to print it:
+     * "null" for a root directory.
+     */
+    private static String getName(Path path) {
+        return String.valueOf(path.getFileName());
     }
 
     private static void printUsage() {
-        System.out.println("Usage: edu.citadel.csis603.util.(<path>)");
+        System.out.println("Usage: edu.citadel.csis603.util.([-compact] [-live] <path>)");
         System.out.println("    where <path> is the path of a file or directory");
         System.out.println();
     }
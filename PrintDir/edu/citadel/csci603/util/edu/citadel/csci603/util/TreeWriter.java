@@ -0,0 +1,110 @@
+package edu.citadel.csci603.util;
+
+import java.io.*;
+import java.util.Arrays;
+
+/**
+ * Writes the lines of a directory tree listing, one entry per line,
+ * indented by nesting level and marked "+ " for a directory or "- " for
+ * a file.  In compact mode each level is indented by one space and the
+ * markers have no trailing space, which roughly halves the output of a
+ * deep tree.
+ * <p>
+ * Indents are copied from a table of spaces that is computed once, and
+ * names are copied straight into the underlying writer's buffer, so
+ * writing an entry allocates nothing.  Nothing is flushed until flush()
+ * or close() is called, or the buffer fills up.
+ */
+public class TreeWriter implements Flushable, Closeable {
+    /** Size in chars of the buffer used by toStandardOutput(). */
+    public static final int BUFFER_SIZE = 1 << 16;
+
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Writer out;
+    private final boolean compact;
+    private final int indentWidth;
+    private final String directoryMarker;
+    private final String fileMarker;
+    private char[] indents;   // indents[0..indentWidth*n) is the indent for level n
+
+    /**
+     * Constructs a tree writer that writes to the specified writer, which
+     * should be buffered.
+     */
+    public TreeWriter(Writer out, boolean compact) {
+        this.out = out;
+        this.compact = compact;
+        indentWidth = compact ? 1 : 2;
+        directoryMarker = compact ? "+" : "+ ";
+        fileMarker = compact ? "-" : "- ";
+        indents = new char[indentWidth * 32];
+        Arrays.fill(indents, ' ');
+    }
+
+    /**
+     * Returns a tree writer for the current System.out, with a buffer of
+     * BUFFER_SIZE chars in front of it.  The caller must flush it when done.
+     */
+    public static TreeWriter toStandardOutput(boolean compact) {
+        return new TreeWriter(new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE), compact);
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    /**
+     * Writes the path given on the command line, without indent or marker.
+     */
+    public void writeRoot(String path) throws IOException {
+        writeLine(path);
+    }
+
+    /**
+     * Writes a line of text as is.
+     */
+    public void writeLine(String line) throws IOException {
+        out.write(line);
+        out.write(LINE_SEPARATOR);
+    }
+
+    public void writeDirectory(int nestingLevel, String name) throws IOException {
+        writeEntry(nestingLevel, directoryMarker, name);
+    }
+
+    public void writeFile(int nestingLevel, String name) throws IOException {
+        writeEntry(nestingLevel, fileMarker, name);
+    }
+
+    /**
+     * Copies text produced by another tree writer with the same mode, such
+     * as one writing the listing of a subtree into a CharArrayWriter.
+     */
+    public void write(CharArrayWriter text) throws IOException {
+        text.writeTo(out);
+    }
+
+    private void writeEntry(int nestingLevel, String marker, String name) throws IOException {
+        int width = indentWidth * nestingLevel;
+        if (width > indents.length) {
+            indents = new char[Math.max(width, 2 * indents.length)];
+            Arrays.fill(indents, ' ');
+        }
+
+        out.write(indents, 0, width);
+        out.write(marker);
+        out.write(name);
+        out.write(LINE_SEPARATOR);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,517 @@
+import walter.Fraction;
+import walter.FractionCache;
+import walter.FractionVector;
+import walter.Fractions;
+import walter.HybridFraction;
+import walter.MutableFraction;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Simple timing driver for the Fraction classes.  Each benchmark is run
+ * several times so that the JIT has a chance to warm up; only the time
+ * of the last run is meaningful.
+ */
+
+public class BenchmarkFraction
+{
+  private static final int N = 5_000_000;
+  private static final int RUNS = 5;
+
+  public static void main(String[] args)
+  {
+    Fraction[] values = randomFractions(N, 42);
+
+    benchmarkSum(values);
+    benchmarkHybrid(values);
+    benchmarkGcd();
+    benchmarkNormalization();
+    benchmarkVector(values);
+    benchmarkParallel(values);
+    benchmarkValueOf();
+    benchmarkMaps();
+  }
+
+  /**
+   * Returns random fractions whose denominators divide 27720 (the lcm of
+   * 1..12), so that long sums of them stay within range of a long.
+   */
+  private static Fraction[] randomFractions(int n, long seed)
+  {
+    Random random = new Random(seed);
+    Fraction[] values = new Fraction[n];
+
+    for (int i = 0; i < n; i++)
+      values[i] = new Fraction(random.nextInt(201) - 100, random.nextInt(12) + 1);
+
+    return values;
+  }
+
+  /**
+   * Sums the values with a chain of Fraction.add calls and with a
+   * MutableFraction accumulator.
+   */
+  private static void benchmarkSum(Fraction[] values)
+  {
+    System.out.println("Summing " + values.length + " fractions");
+
+    for (int run = 1; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      Fraction sum = Fraction.ZERO;
+      for (Fraction f : values)
+        sum = sum.add(f);
+      long chainTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      MutableFraction acc = new MutableFraction();
+      for (Fraction f : values)
+        acc.addInPlace(f);
+      Fraction accSum = acc.toFraction();
+      long accTime = System.nanoTime() - start;
+
+      System.out.println("  run " + run
+              + ":  Fraction.add " + millis(chainTime) + " ms"
+              + "    MutableFraction.addInPlace " + millis(accTime) + " ms"
+              + "    equal results: " + sum.equals(accSum));
+    }
+    System.out.println();
+  }
+
+  /**
+   * Compares a chain of Fraction operations against the same chain of
+   * HybridFraction operations, where every value stays on the long path.
+   */
+  private static void benchmarkHybrid(Fraction[] values)
+  {
+    HybridFraction[] hybrids = new HybridFraction[values.length];
+    for (int i = 0; i < values.length; i++)
+      hybrids[i] = new HybridFraction(values[i]);
+
+    System.out.println("Sum and compare of " + values.length + " fractions (long fast path)");
+
+    for (int run = 1; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      Fraction sum = Fraction.ZERO;
+      int count = 0;
+      for (int i = 1; i < values.length; i++) {
+        sum = sum.add(values[i]);
+        if (values[i].compareTo(values[i - 1]) < 0)
+          count++;
+      }
+      long fractionTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      HybridFraction hybridSum = HybridFraction.ZERO;
+      int hybridCount = 0;
+      for (int i = 1; i < hybrids.length; i++) {
+        hybridSum = hybridSum.add(hybrids[i]);
+        if (hybrids[i].compareTo(hybrids[i - 1]) < 0)
+          hybridCount++;
+      }
+      long hybridTime = System.nanoTime() - start;
+
+      System.out.println("  run " + run
+              + ":  Fraction " + millis(fractionTime) + " ms"
+              + "    HybridFraction " + millis(hybridTime) + " ms"
+              + "    equal results: "
+              + (hybridSum.toFraction().equals(sum) && count == hybridCount));
+    }
+
+    Fraction big = new Fraction(Long.MAX_VALUE / 3, 7);
+    HybridFraction hybridBig = new HybridFraction(big);
+    String fractionProduct;
+    try {
+      fractionProduct = big.multiply(big).toString();
+    } catch (ArithmeticException e) {
+      fractionProduct = "ArithmeticException";
+    }
+    System.out.println("  overflow check:  Fraction " + fractionProduct
+            + "    HybridFraction " + hybridBig.multiply(hybridBig));
+    System.out.println();
+  }
+
+  /**
+   * Compares the previous Euclid gcd with the binary gcd now used by
+   * Fraction, over random inputs and over consecutive Fibonacci numbers
+   * (the worst case for Euclid).
+   */
+  private static void benchmarkGcd()
+  {
+    Random random = new Random(7);
+    long[] randomInputs = new long[2 * 1_000_000];
+    for (int i = 0; i < randomInputs.length; i++)
+      randomInputs[i] = random.nextLong() >>> 2;
+
+    long[] fibonacci = new long[90];
+    fibonacci[0] = 1;
+    fibonacci[1] = 2;
+    for (int i = 2; i < fibonacci.length; i++)
+      fibonacci[i] = fibonacci[i - 1] + fibonacci[i - 2];
+    long[] worstInputs = new long[randomInputs.length];
+    for (int i = 0; i < worstInputs.length; i += 2) {
+      int k = 60 + (i / 2) % 29;
+      worstInputs[i] = fibonacci[k + 1];
+      worstInputs[i + 1] = fibonacci[k];
+    }
+
+    System.out.println("gcd of " + randomInputs.length / 2 + " pairs");
+    timeGcd("random", randomInputs);
+    timeGcd("fibonacci", worstInputs);
+    System.out.println();
+  }
+
+  private static void timeGcd(String label, long[] inputs)
+  {
+    for (int run = 1; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      long check1 = 0;
+      for (int i = 0; i < inputs.length; i += 2)
+        check1 += euclidGcd(inputs[i], inputs[i + 1]);
+      long euclidTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      long check2 = 0;
+      for (int i = 0; i < inputs.length; i += 2)
+        check2 += binaryGcd(inputs[i], inputs[i + 1]);
+      long binaryTime = System.nanoTime() - start;
+
+      System.out.println("  " + label + " run " + run
+              + ":  Euclid " + millis(euclidTime) + " ms"
+              + "    binary " + millis(binaryTime) + " ms"
+              + "    equal results: " + (check1 == check2));
+    }
+  }
+
+  /**
+   * Compares the previous multiply/add (full cross products reduced by the
+   * constructor) with Fraction's cross-cancelling implementations.
+   */
+  private static void benchmarkNormalization()
+  {
+    Random random = new Random(11);
+    Fraction[] values = new Fraction[1_000_000];
+    for (int i = 0; i < values.length; i++)
+      values[i] = new Fraction(random.nextInt(1 << 20) - (1 << 19), random.nextInt(1 << 20) + 1);
+
+    System.out.println("multiply and add of " + values.length + " random pairs");
+
+    for (int run = 1; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      long check1 = 0;
+      for (int i = 1; i < values.length; i++) {
+        Fraction f1 = values[i - 1], f2 = values[i];
+        check1 += oldMultiplyDenominator(f1, f2) + oldAddNumerator(f1, f2);
+      }
+      long oldTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      long check2 = 0;
+      for (int i = 1; i < values.length; i++) {
+        Fraction f1 = values[i - 1], f2 = values[i];
+        check2 += f1.multiply(f2).getDenominator() + f1.add(f2).getNumerator();
+      }
+      long newTime = System.nanoTime() - start;
+
+      System.out.println("  run " + run
+              + ":  full products " + millis(oldTime) + " ms"
+              + "    cross-cancelled " + millis(newTime) + " ms"
+              + "    equal results: " + (check1 == check2));
+    }
+    System.out.println();
+  }
+
+  /**
+   * The previous multiply: full products reduced with the Euclid gcd.
+   * Returns the reduced denominator without allocating a Fraction, so the
+   * comparison is, if anything, in favour of the old path.
+   */
+  private static long oldMultiplyDenominator(Fraction f1, Fraction f2)
+  {
+    long numer = f1.getNumerator() * f2.getNumerator();
+    long denom = f1.getDenominator() * f2.getDenominator();
+    return numer == 0 ? 1 : denom / euclidGcd(numer, denom);
+  }
+
+  /**
+   * The previous add: full products reduced with the Euclid gcd.
+   * Returns the reduced numerator without allocating a Fraction.
+   */
+  private static long oldAddNumerator(Fraction f1, Fraction f2)
+  {
+    long numer = f1.getNumerator() * f2.getDenominator() + f1.getDenominator() * f2.getNumerator();
+    long denom = f1.getDenominator() * f2.getDenominator();
+    return numer == 0 ? 0 : numer / euclidGcd(numer, denom);
+  }
+
+  /**
+   * The modulo-based gcd previously used by Fraction.
+   */
+  private static long euclidGcd(long a, long b)
+  {
+    long a1 = Math.abs(a);
+    long b1 = Math.abs(b);
+    long temp;
+
+    while (b1 != 0) {
+      temp = a1;
+      a1 = b1;
+      b1 = temp % b1;
+    }
+    return a1;
+  }
+
+  /**
+   * Same algorithm as Fraction.gcd, which is not public.
+   */
+  private static long binaryGcd(long a, long b)
+  {
+    long a1 = Math.abs(a);
+    long b1 = Math.abs(b);
+
+    if (a1 == 0)
+      return b1;
+    if (b1 == 0)
+      return a1;
+
+    int shift = Long.numberOfTrailingZeros(a1 | b1);
+    a1 >>>= Long.numberOfTrailingZeros(a1);
+    do {
+      b1 >>>= Long.numberOfTrailingZeros(b1);
+      if (a1 > b1) {
+        long temp = a1;
+        a1 = b1;
+        b1 = temp;
+      }
+      b1 -= a1;
+    } while (b1 != 0);
+
+    return a1 << shift;
+  }
+
+  /**
+   * Compares scans and sorts over an array of Fraction objects with the
+   * same operations on a FractionVector.
+   */
+  private static void benchmarkVector(Fraction[] values)
+  {
+    FractionVector vector = FractionVector.of(values);
+
+    System.out.println("max, dot product and sort of " + values.length + " fractions");
+
+    for (int run = 1; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      Fraction max = values[0];
+      for (Fraction f : values)
+        if (f.compareTo(max) > 0)
+          max = f;
+      MutableFraction dot = new MutableFraction();
+      for (Fraction f : values)
+        dot.addInPlace(f.multiply(f));
+      Fraction[] sorted = values.clone();
+      Arrays.sort(sorted);
+      long objectTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      Fraction vectorMax = vector.max();
+      Fraction vectorDot = vector.dot(vector);
+      FractionVector vectorSorted = FractionVector.of(values);
+      vectorSorted.sort();
+      long vectorTime = System.nanoTime() - start;
+
+      boolean equal = max.equals(vectorMax) && dot.toFraction().equals(vectorDot)
+              && sorted[sorted.length / 2].equals(vectorSorted.get(sorted.length / 2));
+      System.out.println("  run " + run
+              + ":  Fraction[] " + millis(objectTime) + " ms"
+              + "    FractionVector " + millis(vectorTime) + " ms"
+              + "    equal results: " + equal);
+    }
+    System.out.println();
+  }
+
+  /**
+   * Times the sequential sum against Fractions.parallelSum in fork/join
+   * pools of 1, 2, 4, and N worker threads.
+   */
+  private static void benchmarkParallel(Fraction[] values)
+  {
+    int cores = Runtime.getRuntime().availableProcessors();
+    System.out.println("parallel sum of " + values.length + " fractions (" + cores + " cores)");
+
+    Fraction expected = null;
+    for (int run = 1; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      expected = Fractions.sum(values);
+      System.out.println("  run " + run + ":  sequential " + millis(System.nanoTime() - start) + " ms");
+    }
+
+    for (int threads : new int[] { 1, 2, 4, cores }) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      for (int run = 1; run <= RUNS; run++) {
+        long start = System.nanoTime();
+        Fraction sum = Fractions.parallelSum(values, pool);
+        long time = System.nanoTime() - start;
+
+        System.out.println("  run " + run + ":  " + threads + " thread(s) " + millis(time) + " ms"
+                + "    equal results: " + sum.equals(expected));
+      }
+      pool.shutdown();
+    }
+
+    Fraction collected = Arrays.stream(values).parallel().collect(Fractions.summing());
+    System.out.println("  parallel stream collector equal results: " + collected.equals(expected));
+    System.out.println();
+  }
+
+  /**
+   * Compares constructing small fractions with Fraction.valueOf, and
+   * reports the hit rate of a FractionCache over a skewed set of larger
+   * values.
+   */
+  private static void benchmarkValueOf()
+  {
+    Random random = new Random(13);
+    long[] inputs = new long[2 * N];
+    for (int i = 0; i < inputs.length; i += 2) {
+      inputs[i] = random.nextInt(41) - 20;
+      inputs[i + 1] = random.nextInt(20) + 1;
+    }
+
+    System.out.println("construct " + N + " small fractions");
+
+    for (int run = 1; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      long check1 = 0;
+      for (int i = 0; i < inputs.length; i += 2)
+        check1 += new Fraction(inputs[i], inputs[i + 1]).getDenominator();
+      long newTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      long check2 = 0;
+      for (int i = 0; i < inputs.length; i += 2)
+        check2 += Fraction.valueOf(inputs[i], inputs[i + 1]).getDenominator();
+      long valueOfTime = System.nanoTime() - start;
+
+      System.out.println("  run " + run
+              + ":  new Fraction " + millis(newTime) + " ms"
+              + "    Fraction.valueOf " + millis(valueOfTime) + " ms"
+              + "    equal results: " + (check1 == check2));
+    }
+
+    // a few thousand hot values outside the small table, drawn with a skew
+    FractionCache cache = new FractionCache(4096);
+    for (int i = 0; i < N; i++) {
+      int k = (int) Math.abs(random.nextGaussian() * 1000);
+      cache.valueOf(1000 + k, 997);
+    }
+    System.out.println("  " + cache);
+    System.out.println();
+  }
+
+  /**
+   * Compares HashMap and TreeMap lookups keyed by Fraction against the
+   * same maps keyed by OldKey, which reproduces the previous equals,
+   * hashCode and compareTo.
+   */
+  private static void benchmarkMaps()
+  {
+    Random random = new Random(17);
+    int count = 200_000;
+    Fraction[] keys = new Fraction[count];
+    for (int i = 0; i < count; i++)
+      keys[i] = new Fraction(random.nextInt(2000) - 1000, random.nextInt(1000) + 1);
+
+    Map<Fraction, Integer> hashMap = new HashMap<>();
+    Map<OldKey, Integer> oldHashMap = new HashMap<>();
+    Map<Fraction, Integer> treeMap = new TreeMap<>();
+    Map<OldKey, Integer> oldTreeMap = new TreeMap<>();
+    OldKey[] oldKeys = new OldKey[count];
+    for (int i = 0; i < count; i++) {
+      oldKeys[i] = new OldKey(keys[i]);
+      hashMap.put(keys[i], i);
+      oldHashMap.put(oldKeys[i], i);
+      treeMap.put(keys[i], i);
+      oldTreeMap.put(oldKeys[i], i);
+    }
+
+    // look up equal but distinct instances, as a real workload would
+    Fraction[] probes = new Fraction[count];
+    OldKey[] oldProbes = new OldKey[count];
+    for (int i = 0; i < count; i++) {
+      Fraction f = keys[random.nextInt(count)];
+      probes[i] = new Fraction(f.getNumerator() * 3, f.getDenominator() * 3);
+      oldProbes[i] = new OldKey(probes[i]);
+    }
+
+    System.out.println(count + " map lookups, " + hashMap.size() + " distinct keys");
+
+    for (int run = 1; run <= RUNS; run++) {
+      long oldHash = timeLookups(oldHashMap, oldProbes);
+      long newHash = timeLookups(hashMap, probes);
+      long oldTree = timeLookups(oldTreeMap, oldProbes);
+      long newTree = timeLookups(treeMap, probes);
+
+      System.out.println("  run " + run
+              + ":  HashMap old " + millis(oldHash) + " ms, new " + millis(newHash) + " ms"
+              + "    TreeMap old " + millis(oldTree) + " ms, new " + millis(newTree) + " ms");
+    }
+    System.out.println();
+  }
+
+  private static <K> long timeLookups(Map<K, Integer> map, K[] probes)
+  {
+    long start = System.nanoTime();
+    long check = 0;
+    for (int repeat = 0; repeat < 10; repeat++)
+      for (K probe : probes)
+        check += map.get(probe);
+    long time = System.nanoTime() - start;
+
+    if (check == 42)
+      System.out.println();   // keeps the lookups from being optimized away
+    return time;
+  }
+
+  /**
+   * Map key with the equals, hashCode and compareTo that Fraction used
+   * before they were rewritten.
+   */
+  private static final class OldKey implements Comparable<OldKey>
+  {
+    private final long numerator;
+    private final long denominator;
+
+    OldKey(Fraction f)
+    {
+      numerator = f.getNumerator();
+      denominator = f.getDenominator();
+    }
+
+    @Override
+    public int compareTo(OldKey f)
+    {
+      long compare1 = numerator * f.denominator;
+      long compare2 = denominator * f.numerator;
+      return compare1 < compare2 ? -1 : compare1 > compare2 ? 1 : 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+      int result = 1;
+      result = 31 * result + (int) (denominator ^ (denominator >>> 32));
+      result = 31 * result + (int) (numerator ^ (numerator >>> 32));
+      return result;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+      return compareTo((OldKey) obj) == 0;
+    }
+  }
+
+  private static String millis(long nanos)
+  {
+    return String.format("%.1f", nanos / 1_000_000.0);
+  }
+}
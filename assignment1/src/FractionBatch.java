@@ -0,0 +1,308 @@
+import walter.Fraction;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+/**
+ * Batch version of TestFraction for large case files.  Reads pairs of
+ * fractions in the format of resources/testCases.txt (four whitespace
+ * separated integers per pair) and writes one line per pair with the
+ * same operations TestFraction prints:
+ * <pre>
+ *   f1 f2 f1.toDouble() f2.toDouble() f1.equals(f2) f1.compareTo(f2) -f1 f1+f2 f1-f2 f1*f2 f1/f2
+ * </pre>
+ * The quotient is written as "undefined" when f2 is zero, and a result
+ * that cannot be represented is written as "overflow" without stopping
+ * the batch.  Processing stops at end of input or at the "0 1 0 1"
+ * terminator.  A truncated or malformed pair ends the run with an
+ * exception, but the results of the pairs before it are still written.
+ * <p>
+ * Input is read through a FileChannel into a direct buffer and parsed a
+ * byte at a time, and output is formatted into a single byte buffer that
+ * is written to the output channel only when full, so neither side
+ * creates a String per value.  A throughput report is printed to
+ * standard error at the end.
+ * <p>
+ * Usage: FractionBatch &lt;input file&gt; [&lt;output file&gt;]
+ */
+
+public class FractionBatch
+{
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  public static void main(String[] args) throws IOException
+  {
+    if (args.length < 1 || args.length > 2) {
+      System.out.println("Usage: FractionBatch <input file> [<output file>]");
+      System.exit(-1);
+    }
+
+    Path input = Paths.get(args[0]);
+    long start = System.nanoTime();
+    long pairs;
+
+    try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+         WritableByteChannel out = args.length == 2
+                 ? FileChannel.open(Paths.get(args[1]), StandardOpenOption.CREATE,
+                                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                 : Channels.newChannel(new FileOutputStream(FileDescriptor.out))) {
+      pairs = process(new LongReader(in), new ByteWriter(out));
+    }
+
+    double seconds = (System.nanoTime() - start) / 1e9;
+    double megabytes = Files.size(input) / (1024.0 * 1024.0);
+    System.err.printf("%d pairs in %.3f s:  %.0f pairs/sec,  %.1f MB/sec%n",
+            pairs, seconds, pairs / seconds, megabytes / seconds);
+  }
+
+  /**
+   * Processes every pair of fractions from the reader and returns the
+   * number of pairs processed.  The output is flushed even if a pair
+   * cannot be read.
+   */
+  static long process(LongReader in, ByteWriter out) throws IOException
+  {
+    long pairs = 0;
+
+    try {
+      while (in.hasNext()) {
+        Fraction f1 = new Fraction(in.nextLong(), in.nextLong());
+        Fraction f2 = new Fraction(in.nextLong(), in.nextLong());
+
+        if (f1.equals(Fraction.ZERO) && f2.equals(Fraction.ZERO))
+          break;
+
+        out.write(f1).write(' ').write(f2).write(' ');
+        out.write(f1.toDouble()).write(' ').write(f2.toDouble()).write(' ');
+        out.write(f1.equals(f2) ? "true" : "false").write(' ');
+        out.write(f1.compareTo(f2)).write(' ');
+        writeResult(out, '~', f1, f2).write(' ');
+        writeResult(out, '+', f1, f2).write(' ');
+        writeResult(out, '-', f1, f2).write(' ');
+        writeResult(out, '*', f1, f2).write(' ');
+        if (f2.getNumerator() == 0)
+          out.write("undefined");
+        else
+          writeResult(out, '/', f1, f2);
+        out.write('\n');
+
+        pairs++;
+      }
+    } finally {
+      out.flush();
+    }
+
+    return pairs;
+  }
+
+  /**
+   * Writes the result of applying the operator to f1 and f2 ('~' negates
+   * f1), or "overflow" if the result cannot be represented.
+   */
+  private static ByteWriter writeResult(ByteWriter out, char op, Fraction f1, Fraction f2)
+          throws IOException
+  {
+    Fraction result;
+    try {
+      switch (op) {
+        case '~': result = f1.negate();       break;
+        case '+': result = f1.add(f2);        break;
+        case '-': result = f1.subtract(f2);   break;
+        case '*': result = f1.multiply(f2);   break;
+        default:  result = f1.divide(f2);     break;
+      }
+    } catch (ArithmeticException e) {
+      return out.write("overflow");
+    }
+
+    return out.write(result);
+  }
+
+  /**
+   * Parses whitespace separated decimal longs from a channel.
+   */
+  static final class LongReader
+  {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private boolean eof = false;
+
+    LongReader(ReadableByteChannel channel)
+    {
+      this.channel = channel;
+      buffer.flip();   // start empty
+    }
+
+    /**
+     * Returns true if another number remains in the input.
+     */
+    boolean hasNext() throws IOException
+    {
+      skipWhitespace();
+      return buffer.hasRemaining();
+    }
+
+    /**
+     * Returns the next number in the input.
+     *
+     * @throws EOFException if the input is exhausted.
+     * @throws NumberFormatException if the next token is not a long.
+     */
+    long nextLong() throws IOException
+    {
+      if (!hasNext())
+        throw new EOFException();
+
+      boolean negative = false;
+      byte b = buffer.get(buffer.position());
+      if (b == '-' || b == '+') {
+        negative = b == '-';
+        buffer.get();
+      }
+
+      // accumulate as a negative number so that Long.MIN_VALUE parses
+      long result = 0;
+      int digits = 0;
+      while (fill()) {
+        b = buffer.get(buffer.position());
+        if (b < '0' || b > '9')
+          break;
+        buffer.get();
+
+        int digit = b - '0';
+        if (result < Long.MIN_VALUE / 10
+                || (result == Long.MIN_VALUE / 10 && digit > -(Long.MIN_VALUE % 10)))
+          throw new NumberFormatException("Number out of range");
+        result = result * 10 - digit;
+        digits++;
+      }
+
+      if (digits == 0 || (fill() && !isWhitespace(buffer.get(buffer.position()))))
+        throw new NumberFormatException("Malformed number in input");
+
+      if (!negative) {
+        if (result == Long.MIN_VALUE)
+          throw new NumberFormatException("Number out of range");
+        result = -result;
+      }
+      return result;
+    }
+
+    private void skipWhitespace() throws IOException
+    {
+      while (fill() && isWhitespace(buffer.get(buffer.position())))
+        buffer.get();
+    }
+
+    /**
+     * Makes sure at least one byte is buffered.  Returns false at end of input.
+     */
+    private boolean fill() throws IOException
+    {
+      if (buffer.hasRemaining())
+        return true;
+      if (eof)
+        return false;
+
+      buffer.clear();
+      int count = 0;
+      while (count == 0)
+        count = channel.read(buffer);
+      buffer.flip();
+
+      if (count < 0) {
+        eof = true;
+        return false;
+      }
+      return true;
+    }
+
+    private static boolean isWhitespace(byte b)
+    {
+      return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+  }
+
+  /**
+   * Formats numbers and fractions as ASCII into a single buffer and
+   * writes it to a channel when full.
+   */
+  static final class ByteWriter
+  {
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20];
+    private final StringBuilder text = new StringBuilder(32);   // reused by write(double)
+
+    ByteWriter(WritableByteChannel channel)
+    {
+      this.channel = channel;
+    }
+
+    ByteWriter write(char c) throws IOException
+    {
+      ensureRemaining(1);
+      buffer.put((byte) c);
+      return this;
+    }
+
+    ByteWriter write(String s) throws IOException
+    {
+      ensureRemaining(s.length());
+      for (int i = 0; i < s.length(); i++)
+        buffer.put((byte) s.charAt(i));
+      return this;
+    }
+
+    ByteWriter write(Fraction f) throws IOException
+    {
+      return write(f.getNumerator()).write('/').write(f.getDenominator());
+    }
+
+    ByteWriter write(long value) throws IOException
+    {
+      ensureRemaining(20);
+
+      if (value >= 0)
+        value = -value;   // format negatives so that Long.MIN_VALUE works
+      else
+        buffer.put((byte) '-');
+
+      int count = 0;
+      do {
+        digits[count++] = (byte) ('0' - value % 10);
+        value /= 10;
+      } while (value != 0);
+
+      while (count > 0)
+        buffer.put(digits[--count]);
+      return this;
+    }
+
+    ByteWriter write(double value) throws IOException
+    {
+      text.setLength(0);
+      text.append(value);
+
+      ensureRemaining(text.length());
+      for (int i = 0; i < text.length(); i++)
+        buffer.put((byte) text.charAt(i));
+      return this;
+    }
+
+    void flush() throws IOException
+    {
+      buffer.flip();
+      while (buffer.hasRemaining())
+        channel.write(buffer);
+      buffer.clear();
+    }
+
+    private void ensureRemaining(int count) throws IOException
+    {
+      if (buffer.remaining() < count)
+        flush();
+    }
+  }
+}
@@ -8,8 +8,14 @@ import java.io.*;
 
 public class TestFraction
 {
-  public static void main(String[] args)
+  public static void main(String[] args) throws IOException
   {
+    // "-batch" hands large case files to the streaming batch processor
+    if (args.length > 0 && args[0].equals("-batch")) {
+      FractionBatch.main(Arrays.copyOfRange(args, 1, args.length));
+      return;
+    }
+
     long numerator, denominator;
     boolean fromFile = true;
     Fraction f1, f2;
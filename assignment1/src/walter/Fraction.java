@@ -9,6 +9,9 @@ package walter;
  * example, the fraction 2/4 is normalized to 1/2, and the fraction
  * 3/(-4) is normalized to (-3)/4.  Also, all fraction objects are
  * immutable;  they cannot be changed once they have been constructed.
+ * The arithmetic is exact: if the numerator or denominator of a result,
+ * or an intermediate value, does not fit in a long, an ArithmeticException
+ * is thrown rather than a wrapped-around value being returned.
  */
 public final class Fraction implements Comparable<Fraction>
   {
@@ -20,6 +23,35 @@ public final class Fraction implements Comparable<Fraction>
     public static final Fraction ONE  = new Fraction(1);
 
 
+    /**
+     * valueOf() returns shared instances for all fractions n/d with
+     * |n| &lt;= SMALL_MAX and 0 &lt; d &lt;= SMALL_MAX, before or after
+     * normalization.  SMALL[(n + SMALL_MAX)*SMALL_MAX + d - 1] holds the
+     * normalized value of n/d, so 2/4 and 1/2 map to the same instance.
+     */
+    private static final int SMALL_MAX = 32;
+    private static final Fraction[] SMALL = new Fraction[(2*SMALL_MAX + 1)*SMALL_MAX];
+
+    static
+      {
+        // allocate the reduced values first, then point the others at them
+        for (long n = -SMALL_MAX;  n <= SMALL_MAX;  ++n)
+            for (long d = 1;  d <= SMALL_MAX;  ++d)
+                if (n != 0 && gcd(n, d) == 1)
+                    SMALL[smallIndex(n, d)] = n == 1 && d == 1 ? ONE : new Fraction(n, d, true);
+
+        for (long n = -SMALL_MAX;  n <= SMALL_MAX;  ++n)
+            for (long d = 1;  d <= SMALL_MAX;  ++d)
+              {
+                long divisor = gcd(n, d);
+                if (n == 0)
+                    SMALL[smallIndex(n, d)] = ZERO;
+                else if (divisor != 1)
+                    SMALL[smallIndex(n, d)] = SMALL[smallIndex(n/divisor, d/divisor)];
+              }
+      }
+
+
     /**
      * Construct a fraction with the given numerator and with a denominator of 1.
      * @param numerator the numerator of the fraction.
@@ -64,6 +96,50 @@ public final class Fraction implements Comparable<Fraction>
       }
 
 
+    /**
+     * Constructs a fraction from a numerator and denominator that are
+     * already normalized, skipping the gcd computation.
+     */
+    private Fraction(long numerator, long denominator, boolean normalized)
+      {
+        this.numerator   = numerator;
+        this.denominator = denominator;
+      }
+
+
+    /**
+     * Returns a fraction with the given numerator and with a denominator
+     * of 1.  Small values are returned from a table of shared instances
+     * rather than allocated.
+     */
+    public static Fraction valueOf(long numerator)
+      {
+        return valueOf(numerator, 1);
+      }
+
+
+    /**
+     * Returns a normalized fraction with the given numerator and
+     * denominator.  Small values are returned from a table of shared
+     * instances rather than allocated; Fraction.ZERO and Fraction.ONE
+     * are among them.
+     *
+     * @throws IllegalArgumentException  if the denominator is 0.
+     */
+    public static Fraction valueOf(long numerator, long denominator)
+      {
+        if (isSmall(numerator, denominator))
+            return SMALL[smallIndex(numerator, denominator)];
+
+        Fraction f = new Fraction(numerator, denominator);
+
+        if (isSmall(f.numerator, f.denominator))
+            return SMALL[smallIndex(f.numerator, f.denominator)];
+
+        return f;
+      }
+
+
     /**
      * Returns the value of the fraction's numerator.
      */
@@ -97,15 +173,11 @@ public final class Fraction implements Comparable<Fraction>
      * specified Fraction to this Fraction.
      *
      * @param f the Fraction to be added.
+     * @throws ArithmeticException if the result cannot be represented.
      */
     public Fraction add(Fraction f)
       {
-        long numer, denom;
-
-        numer = numerator*f.getDenominator() + denominator*f.getNumerator();
-        denom = denominator*f.getDenominator();
-
-        return new Fraction(numer, denom);
+        return add(f.getNumerator(), f.getDenominator());
       }
 
 
@@ -114,15 +186,11 @@ public final class Fraction implements Comparable<Fraction>
      * specified Fraction from this Fraction.
      *
      * @param f the Fraction to be subtracted.
+     * @throws ArithmeticException if the result cannot be represented.
      */
     public Fraction subtract(Fraction f)
       {
-        long numer, denom;
-
-        numer = numerator*f.getDenominator() - denominator*f.getNumerator();
-        denom = denominator*f.getDenominator();
-
-        return new Fraction(numer, denom);
+        return add(Math.negateExact(f.getNumerator()), f.getDenominator());
       }
 
 
@@ -131,15 +199,21 @@ public final class Fraction implements Comparable<Fraction>
      * specified Fraction with this Fraction.
      *
      * @param f the Fraction to be multiplied.
+     * @throws ArithmeticException if the result cannot be represented.
      */
     public Fraction multiply(Fraction f)
       {
-        long numer, denom;
+        if (numerator == 0 || f.getNumerator() == 0)
+            return ZERO;
+
+        // cancel common factors before multiplying; the result is reduced
+        long divisor1 = gcd(numerator, f.getDenominator());
+        long divisor2 = gcd(f.getNumerator(), denominator);
 
-        numer = numerator*f.getNumerator();
-        denom = denominator*f.getDenominator();
+        long numer = Math.multiplyExact(numerator/divisor1, f.getNumerator()/divisor2);
+        long denom = Math.multiplyExact(denominator/divisor2, f.getDenominator()/divisor1);
 
-        return new Fraction(numer, denom);
+        return normalized(numer, denom);
       }
 
 
@@ -151,33 +225,52 @@ public final class Fraction implements Comparable<Fraction>
      *
      * @throws IllegalArgumentException if the specified fraction
      *             is Fraction(0, 1).
+     * @throws ArithmeticException if the result cannot be represented.
      */
     public Fraction divide(Fraction f)
       {
-        long numer, denom;
+        if (f.getNumerator() == 0)
+            throw new IllegalArgumentException("Fraction with zero in denominator");
+
+        if (numerator == 0)
+            return ZERO;
 
-        numer = numerator * f.getDenominator();
-        denom = denominator * f.getNumerator();
+        // cancel common factors before multiplying; the result is reduced
+        long divisor1 = gcd(numerator, f.getNumerator());
+        long divisor2 = gcd(f.getDenominator(), denominator);
 
-        return new Fraction(numer, denom);
+        long numer = Math.multiplyExact(numerator/divisor1, f.getDenominator()/divisor2);
+        long denom = Math.multiplyExact(denominator/divisor2, f.getNumerator()/divisor1);
+
+        if (denom < 0)
+          {
+            denom = Math.negateExact(denom);
+            numer = Math.negateExact(numer);
+          }
+
+        return normalized(numer, denom);
       }
 
 
     /**
      * Returns a new Fraction that is the result of adding 1 to this Fraction.
+     *
+     * @throws ArithmeticException if the result cannot be represented.
      */
     public Fraction inc()
       {
-        return new Fraction(numerator + denominator, denominator);
+        return normalized(Math.addExact(numerator, denominator), denominator);
       }
 
 
     /**
      * Returns the negation of this Fraction.
+     *
+     * @throws ArithmeticException if the result cannot be represented.
      */
     public Fraction negate()
       {
-        return new Fraction(numerator * -1, denominator);
+        return normalized(Math.negateExact(numerator), denominator);
       }
 
 
@@ -193,70 +286,189 @@ public final class Fraction implements Comparable<Fraction>
 
 
     /**
-     * Compares this Fraction with the specified Fraction.
+     * Compares this Fraction with the specified Fraction.  The comparison
+     * uses 128-bit cross products and therefore cannot overflow.
      *
      * @param   f the Fraction to be compared.
      * @return  a negative integer, zero, or a positive integer as this
      *          Fraction is less than, equal to, or greater than the
      *          specified Fraction.
      */
+    @Override
     public int compareTo(Fraction f)
       {
-        long compare1 = numerator*f.getDenominator();
-        long compare2 = denominator*f.getNumerator();
-
-        if (compare1 < compare2)
-            return -1;
-        else if (compare1 > compare2)
-            return 1;
-        else
-            return 0;
+        return compare(numerator, denominator, f.numerator, f.denominator);
       }
 
 
     @Override
     public int hashCode()
       {
-        final int prime = 31;
-        int result = 1;
-
-        result = prime * result + (int) (denominator ^ (denominator >>> 32));
-        result = prime * result + (int) (numerator ^ (numerator >>> 32));
-
-        return result;
+        return hash(numerator, denominator);
       }
 
 
     /**
-     * Uses this.compareTo(Fraction) method to determine whether the values of two Fractions are equal
-     * @param obj which is cast to Fraction
-     * @return returns true if the value of this Fraction is equal to the value of the specified Fraction
+     * Returns true if the specified object is a Fraction with the same
+     * value as this Fraction.  Since fractions are always normalized, two
+     * fractions are equal exactly when their numerators and denominators
+     * are equal.
+     *
+     * @param obj the object to be compared with this Fraction.
      */
     @Override
     public boolean equals(Object obj)
       {
-        if (this.compareTo((Fraction)obj) == 0)
-          return true;
-        else return false;
+        if (obj == this)
+            return true;
+
+        if (!(obj instanceof Fraction))
+            return false;
+
+        Fraction f = (Fraction) obj;
+        return numerator == f.numerator && denominator == f.denominator;
+      }
+
+
+    /**
+     * Helper method: Returns the fraction numer/denom, which must already
+     * be normalized, from the table of small values if possible.  Callers
+     * compute numer and denom with exact arithmetic, so denom is never a
+     * wrapped-around product.
+     */
+    private static Fraction normalized(long numer, long denom)
+      {
+        if (isSmall(numer, denom))
+            return SMALL[smallIndex(numer, denom)];
+
+        return new Fraction(numer, denom, true);
+      }
+
+
+    /**
+     * Returns true if the normalized fraction numer/denom is in the table
+     * of shared instances.  Package access so that FractionCache can leave
+     * those values out of its slots.
+     */
+    static boolean isSmall(long numer, long denom)
+      {
+        return numer >= -SMALL_MAX && numer <= SMALL_MAX && denom > 0 && denom <= SMALL_MAX;
+      }
+
+
+    private static int smallIndex(long numer, long denom)
+      {
+        return (int) ((numer + SMALL_MAX)*SMALL_MAX + denom - 1);
+      }
+
+
+    /**
+     * Helper method: Adds numer/denom to this Fraction, where denom is
+     * positive and numer/denom is in reduced form.  Uses the gcd of the
+     * two denominators so that intermediate products stay small and the
+     * final gcd is taken over smaller operands (Knuth, TAOCP 4.5.1).
+     *
+     * @throws ArithmeticException if an intermediate value or the result
+     *         cannot be represented.
+     */
+    private Fraction add(long numer, long denom)
+      {
+        long divisor1 = gcd(denominator, denom);
+
+        if (divisor1 == 1)
+            return normalized(Math.addExact(Math.multiplyExact(numerator, denom),
+                                            Math.multiplyExact(denominator, numer)),
+                              Math.multiplyExact(denominator, denom));
+
+        long t = Math.addExact(Math.multiplyExact(numerator, denom/divisor1),
+                               Math.multiplyExact(numer, denominator/divisor1));
+
+        if (t == 0)
+            return ZERO;
+
+        long divisor2 = gcd(t, divisor1);
+
+        return normalized(t/divisor2, Math.multiplyExact(denominator/divisor1, denom/divisor2));
+      }
+
+
+    /**
+     * Compares the fractions a/b and c/d, where b and d are positive,
+     * using 128-bit cross products so that the comparison cannot
+     * overflow.  Package access for the primitive-based collections.
+     *
+     * @return -1, 0, or 1 as a/b is less than, equal to, or greater than c/d.
+     */
+    static int compare(long a, long b, long c, long d)
+      {
+        // values with different signs, or with equal denominators
+        // (including all integers), compare by numerator alone
+        if ((a ^ c) < 0 || b == d)
+            return Long.compare(a, c);
+
+        // when every operand fits in 31 bits the products cannot overflow
+        if (((a + 0x40000000L) | (c + 0x40000000L) | b | d) >>> 31 == 0)
+            return Long.compare(a*d, b*c);
+
+        long high1 = Math.multiplyHigh(a, d);
+        long high2 = Math.multiplyHigh(b, c);
+
+        if (high1 != high2)
+            return high1 < high2 ? -1 : 1;
+
+        return Integer.signum(Long.compareUnsigned(a*d, b*c));
       }
 
 
     /**
-     * Compute the greatest common divisor of two longs.
+     * Returns a well-mixed hash of the normalized fraction a/b, so that
+     * fractions with small or similar components spread evenly over hash
+     * tables.  Package access so that FractionCache uses the same hash.
      */
-    private static long gcd(long a , long b)
+    static int hash(long a, long b)
       {
+        long h = a * 0x9E3779B97F4A7C15L + b;
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        h = (h ^ (h >>> 32)) * 0xD6E8FEB86659FD93L;
+        return (int) (h ^ (h >>> 32));
+      }
+
+
+    /**
+     * Compute the greatest common divisor of two longs using the binary
+     * (Stein) algorithm, which replaces division with shifts.  Package
+     * access so that MutableFraction can share the same normalization logic.
+     */
+    static long gcd(long a, long b)
+      {
+        // magnitudes are treated as unsigned so that Long.MIN_VALUE works
         long a1 = Math.abs(a);
         long b1 = Math.abs(b);
-        long temp;
 
-        while (b1 != 0)
+        if (a1 == 0)
+            return b1;
+        if (b1 == 0)
+            return a1;
+
+        int shift = Long.numberOfTrailingZeros(a1 | b1);
+        a1 >>>= Long.numberOfTrailingZeros(a1);
+
+        do
           {
-            temp = a1;
-            a1 = b1;
-            b1 = temp % b1;
+            b1 >>>= Long.numberOfTrailingZeros(b1);
+
+            if (a1 > b1)
+              {
+                long temp = a1;
+                a1 = b1;
+                b1 = temp;
+              }
+
+            b1 -= a1;
           }
-        return a1;
+        while (b1 != 0);
+
+        return a1 << shift;
       }
 
   }
@@ -0,0 +1,175 @@
+package walter;
+
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * A bounded, thread-safe interning cache for fractions that are used
+ * repeatedly but fall outside the small-value table of Fraction.valueOf().
+ * <p>
+ * The cache is direct mapped: each fraction hashes to exactly one slot,
+ * and a lookup that finds a different fraction in its slot replaces it
+ * (an eviction).  Lookups and replacements are single atomic array
+ * operations, so the cache never blocks, and its memory is fixed at one
+ * reference per slot plus the cached fractions.  Because a slot can be
+ * replaced concurrently, two threads interning the same new value may
+ * briefly receive different instances; they are still equal.
+ * <p>
+ * Values in the small-value table are returned as the table's shared
+ * instances; they never occupy a slot and are not counted as hits or
+ * misses.
+ */
+public final class FractionCache
+  {
+    private final AtomicReferenceArray<Fraction> slots;
+    private final int mask;
+
+    private final LongAdder hits      = new LongAdder();
+    private final LongAdder misses    = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    /**
+     * Constructs a cache with room for at least the specified number of
+     * fractions.  The capacity is rounded up to a power of two.
+     *
+     * @throws IllegalArgumentException if the capacity is not positive
+     *         or is larger than 2^30.
+     */
+    public FractionCache(int capacity)
+      {
+        if (capacity <= 0 || capacity > (1 << 30))
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+
+        slots = new AtomicReferenceArray<>(size);
+        mask  = size - 1;
+      }
+
+
+    /**
+     * Returns the number of slots in this cache.
+     */
+    public int capacity()
+      {
+        return slots.length();
+      }
+
+
+    /**
+     * Returns the canonical fraction equal to numerator/denominator,
+     * allocating and caching it only if it is neither in the small-value
+     * table nor already cached.
+     *
+     * @throws IllegalArgumentException  if the denominator is 0.
+     */
+    public Fraction valueOf(long numerator, long denominator)
+      {
+        Fraction f = Fraction.valueOf(numerator, denominator);
+
+        if (Fraction.isSmall(f.getNumerator(), f.getDenominator()))
+            return f;   // already the shared instance
+
+        return intern(f);
+      }
+
+
+    /**
+     * Returns the canonical fraction equal to the specified fraction: the
+     * shared instance for a value in the small-value table, otherwise the
+     * cached fraction.  If no equal fraction is cached, the specified
+     * fraction is cached and returned.
+     */
+    public Fraction intern(Fraction f)
+      {
+        if (Fraction.isSmall(f.getNumerator(), f.getDenominator()))
+            return Fraction.valueOf(f.getNumerator(), f.getDenominator());
+
+        int index = slot(f.getNumerator(), f.getDenominator());
+        Fraction cached = slots.get(index);
+
+        if (cached != null
+                && cached.getNumerator() == f.getNumerator()
+                && cached.getDenominator() == f.getDenominator())
+          {
+            hits.increment();
+            return cached;
+          }
+
+        misses.increment();
+        if (cached != null)
+            evictions.increment();
+
+        slots.set(index, f);
+        return f;
+      }
+
+
+    /**
+     * Returns the number of lookups that found their fraction in the
+     * cache.  Lookups of values in the small-value table are not counted.
+     */
+    public long getHits()
+      {
+        return hits.sum();
+      }
+
+
+    /**
+     * Returns the number of lookups that did not find their fraction in
+     * the cache.
+     */
+    public long getMisses()
+      {
+        return misses.sum();
+      }
+
+
+    /**
+     * Returns the number of cached fractions that were replaced by a
+     * different fraction hashing to the same slot.
+     */
+    public long getEvictions()
+      {
+        return evictions.sum();
+      }
+
+
+    /**
+     * Removes all of the fractions from this cache and resets the counters.
+     */
+    public void clear()
+      {
+        for (int i = 0;  i < slots.length();  ++i)
+            slots.set(i, null);
+
+        hits.reset();
+        misses.reset();
+        evictions.reset();
+      }
+
+
+    /**
+     * Returns a string with the capacity and counters of this cache.
+     */
+    @Override
+    public String toString()
+      {
+        return "FractionCache[capacity=" + capacity() + ", hits=" + getHits()
+            + ", misses=" + getMisses() + ", evictions=" + getEvictions() + "]";
+      }
+
+
+    /**
+     * Helper method: Returns the slot for a normalized fraction.
+     */
+    private int slot(long numerator, long denominator)
+      {
+        return Fraction.hash(numerator, denominator) & mask;
+      }
+  }
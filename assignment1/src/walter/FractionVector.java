@@ -0,0 +1,527 @@
+package walter;
+
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+
+/**
+ * A growable vector of fractions stored in columnar form: the numerators
+ * and denominators are kept in two parallel long arrays rather than as
+ * references to Fraction objects.  Every element is normalized exactly as
+ * a Fraction would be.  The bulk operations (add, multiply, dot, sum, min,
+ * max, and sort) work directly on the arrays and never create Fraction
+ * objects; Fractions are created only by get(), toArray(), and the scalar
+ * results of the reductions.
+ * <p>
+ * Like Fraction, the arithmetic is exact: every element keeps a positive
+ * denominator, and an operation whose result, or an intermediate value,
+ * does not fit in a long throws an ArithmeticException instead of storing
+ * a wrapped-around value.  Instances are not thread safe.
+ */
+public final class FractionVector
+  {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private long[] numerators;
+    private long[] denominators;
+    private int size;
+
+
+    /**
+     * Constructs an empty vector.
+     */
+    public FractionVector()
+      {
+        this(DEFAULT_CAPACITY);
+      }
+
+
+    /**
+     * Constructs an empty vector with the specified initial capacity.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
+     */
+    public FractionVector(int initialCapacity)
+      {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + initialCapacity);
+
+        numerators   = new long[initialCapacity];
+        denominators = new long[initialCapacity];
+        size = 0;
+      }
+
+
+    /**
+     * Returns a vector containing the specified fractions in order.
+     */
+    public static FractionVector of(Fraction... fractions)
+      {
+        FractionVector vector = new FractionVector(fractions.length);
+
+        for (Fraction f : fractions)
+            vector.append(f);
+
+        return vector;
+      }
+
+
+    /**
+     * Returns a vector containing the fractions of the specified
+     * collection in iteration order.
+     */
+    public static FractionVector of(Iterable<Fraction> fractions)
+      {
+        FractionVector vector = new FractionVector();
+
+        for (Fraction f : fractions)
+            vector.append(f);
+
+        return vector;
+      }
+
+
+    /**
+     * Returns the number of elements in this vector.
+     */
+    public int size()
+      {
+        return size;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this vector contains no elements.
+     */
+    public boolean isEmpty()
+      {
+        return size == 0;
+      }
+
+
+    /**
+     * Appends the specified fraction to the end of this vector.
+     */
+    public void append(Fraction f)
+      {
+        ensureCapacity(size + 1);
+        numerators[size]   = f.getNumerator();
+        denominators[size] = f.getDenominator();
+        ++size;
+      }
+
+
+    /**
+     * Appends the fraction numerator/denominator, normalized, to the end
+     * of this vector.
+     *
+     * @throws IllegalArgumentException if the denominator is 0.
+     * @throws ArithmeticException if the normalized fraction cannot be represented.
+     */
+    public void append(long numerator, long denominator)
+      {
+        if (denominator == 0)
+            throw new IllegalArgumentException("Fraction with zero in denominator");
+
+        ensureCapacity(size + 1);
+        store(numerator, denominator, size);
+        ++size;
+      }
+
+
+    /**
+     * Returns the element at the specified position as a Fraction.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public Fraction get(int index)
+      {
+        checkIndex(index);
+        return new Fraction(numerators[index], denominators[index]);
+      }
+
+
+    /**
+     * Returns the numerator of the element at the specified position.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public long getNumerator(int index)
+      {
+        checkIndex(index);
+        return numerators[index];
+      }
+
+
+    /**
+     * Returns the denominator of the element at the specified position.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public long getDenominator(int index)
+      {
+        checkIndex(index);
+        return denominators[index];
+      }
+
+
+    /**
+     * Replaces the element at the specified position with the specified fraction.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public void set(int index, Fraction f)
+      {
+        checkIndex(index);
+        numerators[index]   = f.getNumerator();
+        denominators[index] = f.getDenominator();
+      }
+
+
+    /**
+     * Returns the elements of this vector as an array of Fractions.
+     */
+    public Fraction[] toArray()
+      {
+        Fraction[] fractions = new Fraction[size];
+
+        for (int i = 0;  i < size;  ++i)
+            fractions[i] = new Fraction(numerators[i], denominators[i]);
+
+        return fractions;
+      }
+
+
+    /**
+     * Returns a new vector whose elements are the element-wise sums of
+     * this vector and the specified vector.
+     *
+     * @throws IllegalArgumentException if the vectors differ in size.
+     * @throws ArithmeticException if a sum cannot be represented.
+     */
+    public FractionVector add(FractionVector v)
+      {
+        checkSameSize(v);
+        FractionVector result = new FractionVector(size);
+
+        for (int i = 0;  i < size;  ++i)
+            addInto(numerators[i], denominators[i], v.numerators[i], v.denominators[i],
+                    result.numerators, result.denominators, i);
+
+        result.size = size;
+        return result;
+      }
+
+
+    /**
+     * Returns a new vector whose elements are the element-wise products of
+     * this vector and the specified vector.
+     *
+     * @throws IllegalArgumentException if the vectors differ in size.
+     * @throws ArithmeticException if a product cannot be represented.
+     */
+    public FractionVector multiply(FractionVector v)
+      {
+        checkSameSize(v);
+        FractionVector result = new FractionVector(size);
+
+        for (int i = 0;  i < size;  ++i)
+            multiplyInto(numerators[i], denominators[i], v.numerators[i], v.denominators[i],
+                         result.numerators, result.denominators, i);
+
+        result.size = size;
+        return result;
+      }
+
+
+    /**
+     * Returns the dot product of this vector and the specified vector.
+     *
+     * @throws IllegalArgumentException if the vectors differ in size.
+     * @throws ArithmeticException if the result cannot be represented.
+     */
+    public Fraction dot(FractionVector v)
+      {
+        checkSameSize(v);
+        MutableFraction sum = new MutableFraction();
+
+        for (int i = 0;  i < size;  ++i)
+          {
+            long a = numerators[i],    b = denominators[i];
+            long c = v.numerators[i],  d = v.denominators[i];
+
+            if (a != 0 && c != 0)
+              {
+                long divisor1 = Fraction.gcd(a, d);
+                long divisor2 = Fraction.gcd(c, b);
+                sum.addInPlace(Math.multiplyExact(a/divisor1, c/divisor2),
+                               Math.multiplyExact(b/divisor2, d/divisor1));
+              }
+          }
+
+        return sum.toFraction();
+      }
+
+
+    /**
+     * Returns the sum of the elements of this vector, or zero if the
+     * vector is empty.
+     *
+     * @throws ArithmeticException if the result cannot be represented.
+     */
+    public Fraction sum()
+      {
+        MutableFraction sum = new MutableFraction();
+
+        for (int i = 0;  i < size;  ++i)
+            sum.addInPlace(numerators[i], denominators[i]);
+
+        return sum.toFraction();
+      }
+
+
+    /**
+     * Returns the smallest element of this vector.
+     *
+     * @throws NoSuchElementException if the vector is empty.
+     */
+    public Fraction min()
+      {
+        return get(extremeIndex(-1));
+      }
+
+
+    /**
+     * Returns the largest element of this vector.
+     *
+     * @throws NoSuchElementException if the vector is empty.
+     */
+    public Fraction max()
+      {
+        return get(extremeIndex(1));
+      }
+
+
+    /**
+     * Sorts the elements of this vector into ascending order.  The sort
+     * is a merge sort over the parallel arrays and is stable.
+     */
+    public void sort()
+      {
+        if (size < 2)
+            return;
+
+        long[] srcNumer = numerators,  srcDenom = denominators;
+        long[] dstNumer = new long[size],  dstDenom = new long[size];
+
+        for (int width = 1;  width < size;  width *= 2)
+          {
+            for (int low = 0;  low < size;  low += 2*width)
+              {
+                int mid  = Math.min(low + width, size);
+                int high = Math.min(low + 2*width, size);
+                int i = low, j = mid, k = low;
+
+                while (i < mid && j < high)
+                  {
+                    if (Fraction.compare(srcNumer[j], srcDenom[j], srcNumer[i], srcDenom[i]) < 0)
+                      {
+                        dstNumer[k] = srcNumer[j];
+                        dstDenom[k++] = srcDenom[j++];
+                      }
+                    else
+                      {
+                        dstNumer[k] = srcNumer[i];
+                        dstDenom[k++] = srcDenom[i++];
+                      }
+                  }
+
+                System.arraycopy(srcNumer, i, dstNumer, k, mid - i);
+                System.arraycopy(srcDenom, i, dstDenom, k, mid - i);
+                k += mid - i;
+                System.arraycopy(srcNumer, j, dstNumer, k, high - j);
+                System.arraycopy(srcDenom, j, dstDenom, k, high - j);
+              }
+
+            long[] temp = srcNumer;  srcNumer = dstNumer;  dstNumer = temp;
+            temp = srcDenom;  srcDenom = dstDenom;  dstDenom = temp;
+          }
+
+        if (srcNumer != numerators)
+          {
+            System.arraycopy(srcNumer, 0, numerators, 0, size);
+            System.arraycopy(srcDenom, 0, denominators, 0, size);
+          }
+      }
+
+
+    /**
+     * Returns a string representation of this vector.
+     */
+    @Override
+    public String toString()
+      {
+        StringBuilder s = new StringBuilder("[");
+
+        for (int i = 0;  i < size;  ++i)
+          {
+            if (i > 0)
+                s.append(", ");
+            s.append(numerators[i]).append('/').append(denominators[i]);
+          }
+
+        return s.append(']').toString();
+      }
+
+
+    /**
+     * Helper method: Returns the index of the smallest (sign &lt; 0) or
+     * largest (sign &gt; 0) element.
+     *
+     * @throws NoSuchElementException if the vector is empty.
+     */
+    private int extremeIndex(int sign)
+      {
+        if (size == 0)
+            throw new NoSuchElementException();
+
+        int best = 0;
+        for (int i = 1;  i < size;  ++i)
+          {
+            if (Fraction.compare(numerators[i], denominators[i],
+                                 numerators[best], denominators[best]) == sign)
+                best = i;
+          }
+
+        return best;
+      }
+
+
+    /**
+     * Helper method: Stores a/b + c/d, reduced, at position i of the
+     * specified arrays, using the gcd of the denominators as Fraction.add does.
+     *
+     * @throws ArithmeticException if an intermediate value or the result
+     *         cannot be represented.
+     */
+    private static void addInto(long a, long b, long c, long d,
+                                long[] numers, long[] denoms, int i)
+      {
+        long divisor1 = Fraction.gcd(b, d);
+
+        if (divisor1 == 1)
+          {
+            long numer = Math.addExact(Math.multiplyExact(a, d), Math.multiplyExact(b, c));
+            denoms[i] = Math.multiplyExact(b, d);
+            numers[i] = numer;
+            return;
+          }
+
+        long t = Math.addExact(Math.multiplyExact(a, d/divisor1), Math.multiplyExact(c, b/divisor1));
+
+        if (t == 0)
+          {
+            numers[i] = 0;
+            denoms[i] = 1;
+          }
+        else
+          {
+            long divisor2 = Fraction.gcd(t, divisor1);
+            denoms[i] = Math.multiplyExact(b/divisor1, d/divisor2);
+            numers[i] = t/divisor2;
+          }
+      }
+
+
+    /**
+     * Helper method: Stores (a/b)*(c/d), reduced, at position i of the
+     * specified arrays, cancelling common factors before multiplying.
+     *
+     * @throws ArithmeticException if the result cannot be represented.
+     */
+    private static void multiplyInto(long a, long b, long c, long d,
+                                     long[] numers, long[] denoms, int i)
+      {
+        if (a == 0 || c == 0)
+          {
+            numers[i] = 0;
+            denoms[i] = 1;
+          }
+        else
+          {
+            long divisor1 = Fraction.gcd(a, d);
+            long divisor2 = Fraction.gcd(c, b);
+            long numer = Math.multiplyExact(a/divisor1, c/divisor2);
+            denoms[i] = Math.multiplyExact(b/divisor2, d/divisor1);
+            numers[i] = numer;
+          }
+      }
+
+
+    /**
+     * Helper method: Normalizes numerator/denominator and stores it at
+     * position i of the specified arrays.
+     */
+    private static void normalizeInto(long numerator, long denominator,
+                                      long[] numers, long[] denoms, int i)
+      {
+        if (numerator == 0)
+            denominator = 1;
+        else
+          {
+            long divisor = Fraction.gcd(numerator, denominator);
+
+            numerator   = numerator/divisor;
+            denominator = denominator/divisor;
+
+            if (denominator < 0)
+              {
+                denominator = Math.negateExact(denominator);
+                numerator   = Math.negateExact(numerator);
+              }
+          }
+
+        numers[i] = numerator;
+        denoms[i] = denominator;
+      }
+
+
+    /**
+     * Helper method: Normalizes numerator/denominator into position i of
+     * this vector.
+     */
+    private void store(long numerator, long denominator, int i)
+      {
+        normalizeInto(numerator, denominator, numerators, denominators, i);
+      }
+
+
+    private void ensureCapacity(int capacity)
+      {
+        if (capacity > numerators.length)
+          {
+            int newCapacity = Math.max(capacity, Math.max(2*numerators.length, DEFAULT_CAPACITY));
+            numerators   = Arrays.copyOf(numerators, newCapacity);
+            denominators = Arrays.copyOf(denominators, newCapacity);
+          }
+      }
+
+
+    private void checkIndex(int index)
+      {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+      }
+
+
+    private void checkSameSize(FractionVector v)
+      {
+        if (v.size != size)
+            throw new IllegalArgumentException("Vector sizes differ: " + size + " and " + v.size);
+      }
+  }
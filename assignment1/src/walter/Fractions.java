@@ -0,0 +1,210 @@
+package walter;
+
+
+import java.util.Collection;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+
+
+/**
+ * Static utility methods for reducing collections of fractions.
+ * <p>
+ * The parallel reductions split the input into a balanced tree of
+ * fork/join tasks.  Each leaf sums (or multiplies) a contiguous range
+ * with a MutableFraction, and partial results are combined pairwise, so
+ * the intermediate values stay close in size and every core can work on
+ * its own range.  All arithmetic is exact: if an intermediate value does
+ * not fit in a long even after reduction an ArithmeticException is thrown
+ * rather than wrapping around.  Since rational addition and multiplication
+ * are associative and commutative and fractions are normalized, the
+ * parallel and sequential reductions return identical results whenever
+ * both succeed.  They group the values differently, though, so one may
+ * throw ArithmeticException where the other does not: the sum of
+ * [Long.MAX_VALUE, 1, -1] overflows if the first two values are added
+ * first, but not if the last two are.
+ */
+public final class Fractions
+  {
+    /**
+     * Ranges of at most this many fractions are reduced sequentially.
+     */
+    private static final int SEQUENTIAL_THRESHOLD = 4096;
+
+
+    private Fractions()
+      {
+        // utility class
+      }
+
+
+    /**
+     * Returns the sum of the specified fractions, computed sequentially.
+     *
+     * @throws ArithmeticException if the sum or an intermediate sum cannot be
+     *         represented.
+     */
+    public static Fraction sum(Fraction[] fractions)
+      {
+        return reduce(fractions, 0, fractions.length, false).toFraction();
+      }
+
+
+    /**
+     * Returns the product of the specified fractions, computed sequentially.
+     *
+     * @throws ArithmeticException if the product or an intermediate product
+     *         cannot be represented.
+     */
+    public static Fraction product(Fraction[] fractions)
+      {
+        return reduce(fractions, 0, fractions.length, true).toFraction();
+      }
+
+
+    /**
+     * Returns the sum of the specified fractions, computed in parallel
+     * in the common fork/join pool.
+     *
+     * @throws ArithmeticException if the sum or an intermediate sum cannot be
+     *         represented.
+     */
+    public static Fraction parallelSum(Collection<Fraction> fractions)
+      {
+        return parallelSum(fractions.toArray(new Fraction[0]), ForkJoinPool.commonPool());
+      }
+
+
+    /**
+     * Returns the sum of the specified fractions, computed in parallel
+     * in the specified fork/join pool.
+     *
+     * @throws ArithmeticException if the sum or an intermediate sum cannot be
+     *         represented.
+     */
+    public static Fraction parallelSum(Fraction[] fractions, ForkJoinPool pool)
+      {
+        return pool.invoke(new ReduceTask(fractions, 0, fractions.length, false)).toFraction();
+      }
+
+
+    /**
+     * Returns the product of the specified fractions, computed in parallel
+     * in the common fork/join pool.
+     *
+     * @throws ArithmeticException if the product or an intermediate product
+     *         cannot be represented.
+     */
+    public static Fraction parallelProduct(Collection<Fraction> fractions)
+      {
+        return parallelProduct(fractions.toArray(new Fraction[0]), ForkJoinPool.commonPool());
+      }
+
+
+    /**
+     * Returns the product of the specified fractions, computed in parallel
+     * in the specified fork/join pool.
+     *
+     * @throws ArithmeticException if the product or an intermediate product
+     *         cannot be represented.
+     */
+    public static Fraction parallelProduct(Fraction[] fractions, ForkJoinPool pool)
+      {
+        return pool.invoke(new ReduceTask(fractions, 0, fractions.length, true)).toFraction();
+      }
+
+
+    /**
+     * Returns a Collector that sums fractions.  Each stream segment is
+     * accumulated in its own MutableFraction, so the collector can be used
+     * with parallel streams.
+     */
+    public static Collector<Fraction, ?, Fraction> summing()
+      {
+        return Collector.of(MutableFraction::new,
+                            MutableFraction::addInPlace,
+                            (f1, f2) -> f1.addInPlace(f2.getNumerator(), f2.getDenominator()),
+                            MutableFraction::toFraction,
+                            Collector.Characteristics.UNORDERED);
+      }
+
+
+    /**
+     * Returns a Collector that multiplies fractions.  Each stream segment
+     * is accumulated in its own MutableFraction, so the collector can be
+     * used with parallel streams.
+     */
+    public static Collector<Fraction, ?, Fraction> multiplying()
+      {
+        return Collector.of(() -> new MutableFraction(1, 1),
+                            MutableFraction::multiplyInPlace,
+                            (f1, f2) -> f1.multiplyInPlace(f2.getNumerator(), f2.getDenominator()),
+                            MutableFraction::toFraction,
+                            Collector.Characteristics.UNORDERED);
+      }
+
+
+    /**
+     * Helper method: Sums or multiplies fractions[low..high-1] sequentially.
+     */
+    private static MutableFraction reduce(Fraction[] fractions, int low, int high, boolean product)
+      {
+        MutableFraction result = product ? new MutableFraction(1, 1) : new MutableFraction();
+
+        for (int i = low;  i < high;  ++i)
+          {
+            if (product)
+                result.multiplyInPlace(fractions[i]);
+            else
+                result.addInPlace(fractions[i]);
+          }
+
+        return result.reduce();
+      }
+
+
+    /**
+     * A fork/join task that reduces a range of an array by splitting it
+     * in half until the range is small enough to reduce sequentially.
+     */
+    private static class ReduceTask extends RecursiveTask<MutableFraction>
+      {
+        private static final long serialVersionUID = 1L;
+
+        private final Fraction[] fractions;
+        private final int low;
+        private final int high;
+        private final boolean product;
+
+
+        public ReduceTask(Fraction[] fractions, int low, int high, boolean product)
+          {
+            this.fractions = fractions;
+            this.low = low;
+            this.high = high;
+            this.product = product;
+          }
+
+
+        @Override
+        protected MutableFraction compute()
+          {
+            if (high - low <= SEQUENTIAL_THRESHOLD)
+                return reduce(fractions, low, high, product);
+
+            int mid = (low + high) >>> 1;
+            ReduceTask left = new ReduceTask(fractions, low, mid, product);
+            left.fork();
+
+            MutableFraction rightResult = new ReduceTask(fractions, mid, high, product).compute();
+            MutableFraction leftResult  = left.join();
+
+            if (product)
+                leftResult.multiplyInPlace(rightResult.getNumerator(), rightResult.getDenominator());
+            else
+                leftResult.addInPlace(rightResult.getNumerator(), rightResult.getDenominator());
+
+            return leftResult.reduce();
+          }
+      }
+  }
@@ -0,0 +1,445 @@
+package walter;
+
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+
+/**
+ * This class encapsulates fractions (rational numbers) of unbounded size.
+ * As long as the numerator and denominator fit in a long, a hybrid
+ * fraction is stored and computed exactly like a Fraction.  Arithmetic
+ * checks every intermediate product for overflow, and when a result does
+ * not fit in a long the fraction is promoted to a BigInteger
+ * representation.  A BigInteger result that fits in a long again is
+ * demoted back to the long representation, so each value has exactly
+ * one representation.
+ * <p>
+ * Like Fraction, hybrid fractions are normalized when they are
+ * constructed (positive denominator, reduced form) and are immutable.
+ */
+public final class HybridFraction implements Comparable<HybridFraction>
+  {
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    // long representation, valid only when bigNumerator is null
+    private final long numerator;
+    private final long denominator;
+
+    // BigInteger representation, non-null only when the value does not fit in longs
+    private final BigInteger bigNumerator;
+    private final BigInteger bigDenominator;
+
+
+    public static final HybridFraction ZERO = new HybridFraction(0);
+    public static final HybridFraction ONE  = new HybridFraction(1);
+
+
+    /**
+     * Construct a fraction with the given numerator and with a denominator of 1.
+     * @param numerator the numerator of the fraction.
+     */
+    public HybridFraction(long numerator)
+      {
+        this.numerator      = numerator;
+        this.denominator    = 1;
+        this.bigNumerator   = null;
+        this.bigDenominator = null;
+      }
+
+
+    /**
+     * Constructs a fraction with the given numerator and denominator.
+     * @param  numerator    the numerator of the fraction.
+     * @param  denominator  the denominator of the fraction.
+     * @throws IllegalArgumentException  if the denominator is 0.
+     */
+    public HybridFraction(long numerator, long denominator)
+      {
+        if (denominator == 0)
+            throw new IllegalArgumentException("Fraction with zero in denominator");
+
+        if (numerator == Long.MIN_VALUE || denominator == Long.MIN_VALUE)
+          {
+            // cannot be negated as a long, so normalize with BigIntegers
+            HybridFraction f = valueOf(BigInteger.valueOf(numerator),
+                                       BigInteger.valueOf(denominator));
+            this.numerator      = f.numerator;
+            this.denominator    = f.denominator;
+            this.bigNumerator   = f.bigNumerator;
+            this.bigDenominator = f.bigDenominator;
+            return;
+          }
+
+        // Normalize the fraction.
+        if (numerator == 0)
+            denominator = 1;
+        else
+          {
+            long divisor = Fraction.gcd(numerator, denominator);
+
+            numerator   = numerator/divisor;
+            denominator = denominator/divisor;
+
+            if (denominator < 0)
+              {
+                denominator = -denominator;
+                numerator   = -numerator;
+              }
+          }
+
+        this.numerator      = numerator;
+        this.denominator    = denominator;
+        this.bigNumerator   = null;
+        this.bigDenominator = null;
+      }
+
+
+    /**
+     * Constructs a hybrid fraction with the value of the specified fraction.
+     */
+    public HybridFraction(Fraction f)
+      {
+        this.numerator      = f.getNumerator();
+        this.denominator    = f.getDenominator();
+        this.bigNumerator   = null;
+        this.bigDenominator = null;
+      }
+
+
+    /**
+     * Constructs a fraction from an already normalized long representation.
+     */
+    private HybridFraction(long numerator, long denominator, boolean normalized)
+      {
+        this.numerator      = numerator;
+        this.denominator    = denominator;
+        this.bigNumerator   = null;
+        this.bigDenominator = null;
+      }
+
+
+    /**
+     * Constructs a fraction from an already normalized BigInteger
+     * representation that does not fit in longs.
+     */
+    private HybridFraction(BigInteger numerator, BigInteger denominator)
+      {
+        this.numerator      = 0;
+        this.denominator    = 1;
+        this.bigNumerator   = numerator;
+        this.bigDenominator = denominator;
+      }
+
+
+    /**
+     * Returns a normalized hybrid fraction with the given numerator and
+     * denominator, using the long representation whenever possible.
+     *
+     * @throws IllegalArgumentException  if the denominator is 0.
+     */
+    public static HybridFraction valueOf(BigInteger numerator, BigInteger denominator)
+      {
+        if (denominator.signum() == 0)
+            throw new IllegalArgumentException("Fraction with zero in denominator");
+
+        if (numerator.signum() == 0)
+            return ZERO;
+
+        BigInteger divisor = numerator.gcd(denominator);
+        if (!divisor.equals(BigInteger.ONE))
+          {
+            numerator   = numerator.divide(divisor);
+            denominator = denominator.divide(divisor);
+          }
+
+        if (denominator.signum() < 0)
+          {
+            numerator   = numerator.negate();
+            denominator = denominator.negate();
+          }
+
+        if (fitsInLong(numerator) && fitsInLong(denominator))
+            return new HybridFraction(numerator.longValue(), denominator.longValue(), true);
+        else
+            return new HybridFraction(numerator, denominator);
+      }
+
+
+    /**
+     * Returns true if this fraction is stored as a pair of longs.
+     */
+    public boolean isLong()
+      {
+        return bigNumerator == null;
+      }
+
+
+    /**
+     * Returns the value of the fraction's numerator.
+     */
+    public BigInteger getNumerator()
+      {
+        return bigNumerator != null ? bigNumerator : BigInteger.valueOf(numerator);
+      }
+
+
+    /**
+     * Returns the value of the fraction's denominator.
+     */
+    public BigInteger getDenominator()
+      {
+        return bigDenominator != null ? bigDenominator : BigInteger.valueOf(denominator);
+      }
+
+
+    /**
+     * Returns value of the fraction converted to a double, where
+     * the numerator is divided by the denominator.
+     */
+    public double toDouble()
+      {
+        if (bigNumerator == null)
+            return 1.0 * numerator / denominator;
+        else
+            return new BigDecimal(bigNumerator)
+                .divide(new BigDecimal(bigDenominator), MathContext.DECIMAL64)
+                .doubleValue();
+      }
+
+
+    /**
+     * Returns this value as a Fraction.
+     *
+     * @throws ArithmeticException if the value does not fit in a Fraction.
+     */
+    public Fraction toFraction()
+      {
+        if (bigNumerator != null)
+            throw new ArithmeticException("Fraction overflow: " + this);
+
+        return new Fraction(numerator, denominator);
+      }
+
+
+    /**
+     * Returns a new fraction that is the result of adding the
+     * specified fraction to this fraction.
+     *
+     * @param f the fraction to be added.
+     */
+    public HybridFraction add(HybridFraction f)
+      {
+        if (bigNumerator == null && f.bigNumerator == null)
+          {
+            long ad = numerator*f.denominator;
+            long bc = denominator*f.numerator;
+            long bd = denominator*f.denominator;
+            long numer = ad + bc;
+
+            if (!productOverflows(numerator, f.denominator, ad)
+                    && !productOverflows(denominator, f.numerator, bc)
+                    && !productOverflows(denominator, f.denominator, bd)
+                    && !sumOverflows(ad, bc, numer))
+                return new HybridFraction(numer, bd);
+          }
+
+        return valueOf(getNumerator().multiply(f.getDenominator())
+                           .add(getDenominator().multiply(f.getNumerator())),
+                       getDenominator().multiply(f.getDenominator()));
+      }
+
+
+    /**
+     * Returns a new fraction that is the result of subtracting the
+     * specified fraction from this fraction.
+     *
+     * @param f the fraction to be subtracted.
+     */
+    public HybridFraction subtract(HybridFraction f)
+      {
+        if (bigNumerator == null && f.bigNumerator == null)
+          {
+            long ad = numerator*f.denominator;
+            long bc = denominator*f.numerator;
+            long bd = denominator*f.denominator;
+            long numer = ad - bc;
+
+            if (!productOverflows(numerator, f.denominator, ad)
+                    && !productOverflows(denominator, f.numerator, bc)
+                    && !productOverflows(denominator, f.denominator, bd)
+                    && !differenceOverflows(ad, bc, numer))
+                return new HybridFraction(numer, bd);
+          }
+
+        return valueOf(getNumerator().multiply(f.getDenominator())
+                           .subtract(getDenominator().multiply(f.getNumerator())),
+                       getDenominator().multiply(f.getDenominator()));
+      }
+
+
+    /**
+     * Returns a new fraction that is the result of multiplying the
+     * specified fraction with this fraction.
+     *
+     * @param f the fraction to be multiplied.
+     */
+    public HybridFraction multiply(HybridFraction f)
+      {
+        if (bigNumerator == null && f.bigNumerator == null)
+          {
+            long numer = numerator*f.numerator;
+            long denom = denominator*f.denominator;
+
+            if (!productOverflows(numerator, f.numerator, numer)
+                    && !productOverflows(denominator, f.denominator, denom))
+                return new HybridFraction(numer, denom);
+          }
+
+        return valueOf(getNumerator().multiply(f.getNumerator()),
+                       getDenominator().multiply(f.getDenominator()));
+      }
+
+
+    /**
+     * Returns a new fraction that is the result of dividing this
+     * fraction by the specified fraction.
+     *
+     * @param f the fraction to be used as the divisor.
+     *
+     * @throws IllegalArgumentException if the specified fraction is zero.
+     */
+    public HybridFraction divide(HybridFraction f)
+      {
+        if (bigNumerator == null && f.bigNumerator == null)
+          {
+            long numer = numerator*f.denominator;
+            long denom = denominator*f.numerator;
+
+            if (!productOverflows(numerator, f.denominator, numer)
+                    && !productOverflows(denominator, f.numerator, denom))
+                return new HybridFraction(numer, denom);
+          }
+
+        return valueOf(getNumerator().multiply(f.getDenominator()),
+                       getDenominator().multiply(f.getNumerator()));
+      }
+
+
+    /**
+     * Returns the negation of this fraction.
+     */
+    public HybridFraction negate()
+      {
+        if (bigNumerator == null && numerator != Long.MIN_VALUE)
+            return new HybridFraction(-numerator, denominator, true);
+        else
+            return valueOf(getNumerator().negate(), getDenominator());
+      }
+
+
+    /**
+     * Returns a string representation for the fraction of the form
+     * "n/d", where n is the numerator and d is the denominator.
+     */
+    @Override
+    public String toString()
+      {
+        if (bigNumerator == null)
+            return Long.toString(numerator) + '/' + Long.toString(denominator);
+        else
+            return bigNumerator.toString() + '/' + bigDenominator.toString();
+      }
+
+
+    /**
+     * Compares this fraction with the specified fraction.  Two long
+     * fractions are compared with 128-bit cross products, so the
+     * comparison never overflows.
+     *
+     * @param   f the fraction to be compared.
+     * @return  a negative integer, zero, or a positive integer as this
+     *          fraction is less than, equal to, or greater than the
+     *          specified fraction.
+     */
+    @Override
+    public int compareTo(HybridFraction f)
+      {
+        if (bigNumerator == null && f.bigNumerator == null)
+            return Fraction.compare(numerator, denominator, f.numerator, f.denominator);
+
+        return getNumerator().multiply(f.getDenominator())
+                   .compareTo(getDenominator().multiply(f.getNumerator()));
+      }
+
+
+    @Override
+    public int hashCode()
+      {
+        if (bigNumerator != null)
+            return 31 * bigNumerator.hashCode() + bigDenominator.hashCode();
+
+        return Fraction.hash(numerator, denominator);
+      }
+
+
+    /**
+     * Returns true if the specified object is a hybrid fraction with the
+     * same value as this one.  Since hybrid fractions are normalized and
+     * have only one representation, this is a field comparison.
+     */
+    @Override
+    public boolean equals(Object obj)
+      {
+        if (obj == this)
+            return true;
+
+        if (!(obj instanceof HybridFraction))
+            return false;
+
+        HybridFraction f = (HybridFraction) obj;
+
+        if (bigNumerator == null)
+            return f.bigNumerator == null
+                && numerator == f.numerator && denominator == f.denominator;
+        else
+            return bigNumerator.equals(f.bigNumerator)
+                && bigDenominator.equals(f.bigDenominator);
+      }
+
+
+    /**
+     * Returns true if the signed product x*y, whose low 64 bits are
+     * given by product, does not fit in a long.
+     */
+    private static boolean productOverflows(long x, long y, long product)
+      {
+        return Math.multiplyHigh(x, y) != (product >> 63);
+      }
+
+
+    /**
+     * Returns true if x + y, computed as sum, overflowed.
+     */
+    private static boolean sumOverflows(long x, long y, long sum)
+      {
+        return ((x ^ sum) & (y ^ sum)) < 0;
+      }
+
+
+    /**
+     * Returns true if x - y, computed as difference, overflowed.
+     */
+    private static boolean differenceOverflows(long x, long y, long difference)
+      {
+        return ((x ^ y) & (x ^ difference)) < 0;
+      }
+
+
+    private static boolean fitsInLong(BigInteger value)
+      {
+        return value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0;
+      }
+  }
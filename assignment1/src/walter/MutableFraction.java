@@ -0,0 +1,356 @@
+package walter;
+
+
+/**
+ * A mutable accumulator for fractions.  Unlike Fraction, the arithmetic
+ * methods of this class modify the accumulator in place rather than
+ * allocating a new object, and the value is not reduced after every
+ * operation.  Reduction is performed lazily, either on demand by calling
+ * reduce(), when the denominator grows past a threshold, or when an
+ * intermediate product would otherwise overflow.  Call toFraction() to
+ * obtain the normalized, immutable result.
+ * <p>
+ * The denominator of a mutable fraction is always positive, but the
+ * fraction is not necessarily in reduced form.  Instances are not
+ * thread safe.
+ */
+public final class MutableFraction
+  {
+    /**
+     * Once the denominator exceeds this value the fraction is reduced,
+     * so that the next product of two operands is unlikely to overflow.
+     */
+    private static final long REDUCE_THRESHOLD = 1L << 31;
+
+    private long numerator;
+    private long denominator;
+
+
+    /**
+     * Constructs a mutable fraction with the value 0.
+     */
+    public MutableFraction()
+      {
+        this(0, 1);
+      }
+
+
+    /**
+     * Constructs a mutable fraction with the value of the specified fraction.
+     */
+    public MutableFraction(Fraction f)
+      {
+        this(f.getNumerator(), f.getDenominator());
+      }
+
+
+    /**
+     * Constructs a mutable fraction with the given numerator and denominator.
+     * @param  numerator    the numerator of the fraction.
+     * @param  denominator  the denominator of the fraction.
+     * @throws IllegalArgumentException  if the denominator is 0.
+     */
+    public MutableFraction(long numerator, long denominator)
+      {
+        set(numerator, denominator);
+      }
+
+
+    /**
+     * Returns the current numerator, which is not necessarily reduced.
+     */
+    public long getNumerator()
+      {
+        return numerator;
+      }
+
+
+    /**
+     * Returns the current denominator, which is positive but not
+     * necessarily reduced.
+     */
+    public long getDenominator()
+      {
+        return denominator;
+      }
+
+
+    /**
+     * Sets the value of this mutable fraction.
+     *
+     * @return this mutable fraction.
+     * @throws IllegalArgumentException  if the denominator is 0.
+     */
+    public MutableFraction set(long numerator, long denominator)
+      {
+        if (denominator == 0)
+            throw new IllegalArgumentException("Fraction with zero in denominator");
+
+        if (denominator < 0)
+          {
+            numerator   = Math.negateExact(numerator);
+            denominator = Math.negateExact(denominator);
+          }
+
+        this.numerator   = numerator;
+        this.denominator = denominator;
+        return this;
+      }
+
+
+    /**
+     * Sets the value of this mutable fraction to the value of the
+     * specified fraction.
+     *
+     * @return this mutable fraction.
+     */
+    public MutableFraction set(Fraction f)
+      {
+        numerator   = f.getNumerator();
+        denominator = f.getDenominator();
+        return this;
+      }
+
+
+    /**
+     * Adds the specified fraction to this mutable fraction.
+     *
+     * @return this mutable fraction.
+     * @throws ArithmeticException if the result cannot be represented
+     *         even after reduction.
+     */
+    public MutableFraction addInPlace(Fraction f)
+      {
+        return addInPlace(f.getNumerator(), f.getDenominator());
+      }
+
+
+    /**
+     * Adds the value numer/denom to this mutable fraction.
+     *
+     * @return this mutable fraction.
+     * @throws IllegalArgumentException if denom is 0.
+     * @throws ArithmeticException if the result cannot be represented
+     *         even after reduction.
+     */
+    public MutableFraction addInPlace(long numer, long denom)
+      {
+        if (denom == 0)
+            throw new IllegalArgumentException("Fraction with zero in denominator");
+
+        if (denom < 0)
+          {
+            numer = Math.negateExact(numer);
+            denom = Math.negateExact(denom);
+          }
+
+        // Overflow is detected without exceptions so that an accumulator
+        // whose numerator has grown large does not pay for one per call.
+        if (denom == denominator)
+          {
+            // common case when summing values over a shared denominator
+            long sum = numerator + numer;
+
+            if (((numerator ^ sum) & (numer ^ sum)) >= 0)
+              {
+                numerator = sum;
+                return this;
+              }
+          }
+        else
+          {
+            long ad  = numerator*denom;
+            long bc  = denominator*numer;
+            long bd  = denominator*denom;
+            long sum = ad + bc;
+
+            if (Math.multiplyHigh(numerator, denom) == (ad >> 63)
+                    && Math.multiplyHigh(denominator, numer) == (bc >> 63)
+                    && Math.multiplyHigh(denominator, denom) == (bd >> 63)
+                    && ((ad ^ sum) & (bc ^ sum)) >= 0)
+              {
+                numerator   = sum;
+                denominator = bd;
+                reduceIfLarge();
+                return this;
+              }
+          }
+
+        reduce();
+        long divisor = Fraction.gcd(numer, denom);
+        addSlow(numer/divisor, denom/divisor);
+        return this;
+      }
+
+
+    /**
+     * Subtracts the specified fraction from this mutable fraction.
+     *
+     * @return this mutable fraction.
+     * @throws ArithmeticException if the result cannot be represented
+     *         even after reduction.
+     */
+    public MutableFraction subtractInPlace(Fraction f)
+      {
+        return addInPlace(Math.negateExact(f.getNumerator()), f.getDenominator());
+      }
+
+
+    /**
+     * Multiplies this mutable fraction by the specified fraction.
+     *
+     * @return this mutable fraction.
+     * @throws ArithmeticException if the result cannot be represented
+     *         even after reduction.
+     */
+    public MutableFraction multiplyInPlace(Fraction f)
+      {
+        return multiplyInPlace(f.getNumerator(), f.getDenominator());
+      }
+
+
+    /**
+     * Multiplies this mutable fraction by the value numer/denom.
+     *
+     * @return this mutable fraction.
+     * @throws IllegalArgumentException if denom is 0.
+     * @throws ArithmeticException if the result cannot be represented
+     *         even after reduction.
+     */
+    public MutableFraction multiplyInPlace(long numer, long denom)
+      {
+        if (denom == 0)
+            throw new IllegalArgumentException("Fraction with zero in denominator");
+
+        if (denom < 0)
+          {
+            numer = Math.negateExact(numer);
+            denom = Math.negateExact(denom);
+          }
+
+        long numer1 = numerator*numer;
+        long denom1 = denominator*denom;
+
+        if (Math.multiplyHigh(numerator, numer) == (numer1 >> 63)
+                && Math.multiplyHigh(denominator, denom) == (denom1 >> 63))
+          {
+            numerator   = numer1;
+            denominator = denom1;
+          }
+        else
+          {
+            // cancel common factors across the two fractions and try again
+            reduce();
+            long divisor1 = Fraction.gcd(numerator, denom);
+            long divisor2 = Fraction.gcd(numer, denominator);
+            numerator   = Math.multiplyExact(numerator/divisor1, numer/divisor2);
+            denominator = Math.multiplyExact(denominator/divisor2, denom/divisor1);
+          }
+
+        if (numerator == 0)
+            denominator = 1;
+
+        reduceIfLarge();
+        return this;
+      }
+
+
+    /**
+     * Divides this mutable fraction by the specified fraction.
+     *
+     * @return this mutable fraction.
+     * @throws IllegalArgumentException if the specified fraction is 0.
+     * @throws ArithmeticException if the result cannot be represented
+     *         even after reduction.
+     */
+    public MutableFraction divideInPlace(Fraction f)
+      {
+        return multiplyInPlace(f.getDenominator(), f.getNumerator());
+      }
+
+
+    /**
+     * Negates this mutable fraction.
+     *
+     * @return this mutable fraction.
+     */
+    public MutableFraction negateInPlace()
+      {
+        numerator = Math.negateExact(numerator);
+        return this;
+      }
+
+
+    /**
+     * Reduces this mutable fraction to lowest terms.
+     *
+     * @return this mutable fraction.
+     */
+    public MutableFraction reduce()
+      {
+        if (numerator == 0)
+            denominator = 1;
+        else
+          {
+            long divisor = Fraction.gcd(numerator, denominator);
+            numerator   = numerator/divisor;
+            denominator = denominator/divisor;
+          }
+
+        return this;
+      }
+
+
+    /**
+     * Returns the current value as a normalized, immutable Fraction.
+     */
+    public Fraction toFraction()
+      {
+        return new Fraction(numerator, denominator);
+      }
+
+
+    /**
+     * Returns a string representation for the current, possibly
+     * unreduced, value of the form "n/d".
+     */
+    @Override
+    public String toString()
+      {
+        return Long.toString(numerator) + '/' + Long.toString(denominator);
+      }
+
+
+    /**
+     * Helper method: Adds numer/denom using the denominator gcd so that
+     * intermediate products are as small as possible.  Both operands
+     * must already be reduced with positive denominators.
+     */
+    private void addSlow(long numer, long denom)
+      {
+        long divisor = Fraction.gcd(denominator, denom);
+        long d1 = denominator/divisor;
+        long d2 = denom/divisor;
+
+        long numer1 = Math.addExact(Math.multiplyExact(numerator, d2),
+                                    Math.multiplyExact(numer, d1));
+        long denom1 = Math.multiplyExact(denominator, d2);
+
+        numerator   = numer1;
+        denominator = denom1;
+        reduce();
+      }
+
+
+    /**
+     * Helper method: Reduces this mutable fraction if the denominator has
+     * grown past REDUCE_THRESHOLD.  The numerator is not checked, since a
+     * large numerator usually reflects a large value rather than a common
+     * factor, and reducing it on every call would only cost a gcd.
+     */
+    private void reduceIfLarge()
+      {
+        if (denominator > REDUCE_THRESHOLD)
+            reduce();
+      }
+  }
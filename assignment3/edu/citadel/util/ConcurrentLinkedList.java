@@ -0,0 +1,329 @@
+package edu.citadel.util;
+
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+
+/**
+ * A thread-safe, lock-free linked list that supports appending at the end
+ * and removing from the front, for sharing between producer and consumer
+ * threads without a lock.  The algorithm is the non-blocking queue of
+ * Michael and Scott (PODC 1996): the list starts with a dummy node, add()
+ * links a node after the last node with a compare-and-set, and the
+ * removal methods advance the head with a compare-and-set, so a thread
+ * that is delayed at any point never blocks the others.
+ * <p>
+ * Iterators are <i>weakly consistent</i>: they never throw
+ * ConcurrentModificationException, they return each element at most once,
+ * and they reflect some but not necessarily all changes made after they
+ * were created.  For the same reason size() takes time proportional to
+ * the size of the list and is only an estimate while other threads are
+ * modifying it.  Null elements are not permitted.
+ */
+public class ConcurrentLinkedList<E> implements Iterable<E>
+  {
+    private volatile Node<E> head;   // dummy node; head.next is the first element
+    private volatile Node<E> tail;   // last node, or a node near the end of the list
+
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentLinkedList, Node> HEAD =
+        AtomicReferenceFieldUpdater.newUpdater(ConcurrentLinkedList.class, Node.class, "head");
+
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentLinkedList, Node> TAIL =
+        AtomicReferenceFieldUpdater.newUpdater(ConcurrentLinkedList.class, Node.class, "tail");
+
+
+    /**
+     * A list node contains the data value and a link to the next node.
+     * The data value is cleared when the node becomes the dummy head.
+     */
+    private static class Node<E>
+      {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+            AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+
+        private volatile E data;
+        private volatile Node<E> next;
+
+
+        /**
+         * Construct a node with the given data value.
+         */
+        public Node(E data)
+          {
+            this.data = data;
+          }
+
+
+        /**
+         * Atomically sets next to update if it is currently expect.
+         */
+        public boolean casNext(Node<E> expect, Node<E> update)
+          {
+            return NEXT.compareAndSet(this, expect, update);
+          }
+      }
+
+
+    /**
+     * A weakly consistent iterator for this list.
+     */
+    private static class ConcurrentListIterator<E> implements Iterator<E>
+      {
+        private Node<E> nextNode;
+        private E nextElement;
+
+
+        /**
+         * Construct an iterator initialized to the first element in the list.
+         */
+        public ConcurrentListIterator(Node<E> dummy)
+          {
+            advance(dummy.next);
+          }
+
+
+        /**
+         * Moves to the first node at or after node that still has data.
+         */
+        private void advance(Node<E> node)
+          {
+            while (node != null)
+              {
+                E data = node.data;
+                if (data != null)
+                  {
+                    nextNode = node;
+                    nextElement = data;
+                    return;
+                  }
+                node = node.next;
+              }
+
+            nextNode = null;
+            nextElement = null;
+          }
+
+
+        /**
+         * Returns true if the iteration has more elements.
+         */
+        @Override
+        public boolean hasNext()
+          {
+            return nextNode != null;
+          }
+
+
+        /**
+         * Returns the next element in the list.
+         *
+         * @throws NoSuchElementException if the iteration has no next element.
+         */
+        @Override
+        public E next()
+          {
+            if (nextNode == null)
+                throw new NoSuchElementException();
+
+            E rtnval = nextElement;
+            advance(nextNode.next);
+            return rtnval;
+          }
+      }
+
+
+    /**
+     * Constructs an empty list.
+     */
+    public ConcurrentLinkedList()
+      {
+        head = tail = new Node<>(null);
+      }
+
+
+    /**
+     * Appends the specified element to the end of the list.
+     *
+     * @throws NullPointerException if the element is null.
+     */
+    public void add(E element)
+      {
+        if (element == null)
+            throw new NullPointerException();
+
+        Node<E> newNode = new Node<>(element);
+
+        while (true)
+          {
+            Node<E> t = tail;
+            Node<E> next = t.next;
+
+            if (t == tail)
+              {
+                if (next == null)
+                  {
+                    if (t.casNext(null, newNode))
+                      {
+                        // failure is fine: another thread has advanced tail
+                        TAIL.compareAndSet(this, t, newNode);
+                        return;
+                      }
+                  }
+                else
+                  {
+                    // tail is lagging; help the other thread advance it
+                    TAIL.compareAndSet(this, t, next);
+                  }
+              }
+          }
+      }
+
+
+    /**
+     * Appends the specified element to the end of the list.
+     * Equivalent to add(E).
+     *
+     * @throws NullPointerException if the element is null.
+     */
+    public void addLast(E element)
+      {
+        add(element);
+      }
+
+
+    /**
+     * Removes and returns the first element of this list, or returns
+     * null if this list is empty.
+     */
+    public E pollFirst()
+      {
+        while (true)
+          {
+            Node<E> h = head;
+            Node<E> t = tail;
+            Node<E> first = h.next;
+
+            if (h == head)
+              {
+                if (first == null)
+                    return null;
+
+                if (h == t)
+                  {
+                    // tail is lagging behind a node that was just added
+                    TAIL.compareAndSet(this, t, first);
+                  }
+                else
+                  {
+                    E rtnval = first.data;
+                    if (HEAD.compareAndSet(this, h, first))
+                      {
+                        // first is the new dummy node
+                        first.data = null;
+                        return rtnval;
+                      }
+                  }
+              }
+          }
+      }
+
+
+    /**
+     * Removes and returns the first element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E removeFirst()
+      {
+        E rtnval = pollFirst();
+
+        if (rtnval == null)
+            throw new NoSuchElementException();
+
+        return rtnval;
+      }
+
+
+    /**
+     * Returns the first element of this list, or null if this list is empty.
+     */
+    public E peekFirst()
+      {
+        while (true)
+          {
+            Node<E> h = head;
+            Node<E> first = h.next;
+
+            if (first == null)
+                return null;
+
+            E data = first.data;
+
+            // data is null only if first was removed concurrently; retry
+            if (data != null)
+                return data;
+          }
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     */
+    public boolean isEmpty()
+      {
+        return peekFirst() == null;
+      }
+
+
+    /**
+     * Returns the number of elements in this list.  This method traverses
+     * the list, and the result may be inaccurate if other threads modify
+     * the list during the traversal.
+     */
+    public int size()
+      {
+        int count = 0;
+
+        for (Node<E> node = head.next;  node != null;  node = node.next)
+            if (node.data != null)
+                ++count;
+
+        return count;
+      }
+
+
+    /**
+     * Returns a weakly consistent iterator over the elements in this
+     * list in proper sequence.
+     */
+    @Override
+    public Iterator<E> iterator()
+      {
+        return new ConcurrentListIterator<>(head);
+      }
+
+
+    /**
+     * Returns a string representation of this list.
+     */
+    @Override
+    public String toString()
+      {
+        StringBuilder rtnval = new StringBuilder("[");
+        String separator = "";
+
+        for (E element : this)
+          {
+            rtnval.append(separator).append(element);
+            separator = ", ";
+          }
+
+        return rtnval.append(']').toString();
+      }
+  }
@@ -0,0 +1,756 @@
+package edu.citadel.util;
+
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * A linked list of int values.  This class has the same structure and
+ * performance characteristics as LinkedList&lt;Integer&gt;, but each node
+ * holds its value directly instead of a reference to a boxed Integer, so
+ * the list uses less memory, a scan does not follow a second reference
+ * per element, and none of the methods allocate a wrapper object.
+ * <p>
+ * Since there is no null value to return, getFirst() and getLast() throw
+ * NoSuchElementException on an empty list where LinkedList's peekFirst()
+ * and peekLast() would return null.
+ * <p>
+ * As in LinkedList, the spliterator used by stream() and parallelStream()
+ * binds to the list when it first traverses or splits it, and from then
+ * on throws ConcurrentModificationException if the list has been
+ * structurally modified.
+ */
+public class IntLinkedList
+  {
+    private Node first;   // reference to the first node
+    private Node last;    // reference to the last node
+    private int size;     // number of elements in the list
+
+    private Node cursor;       // most recently accessed node, or null
+    private int cursorIndex;   // index of cursor when cursor != null
+    private int modCount;      // number of structural modifications, for spliterators
+
+
+    /**
+     * A list node contains the data value and links to the next
+     * and previous nodes in the linked list.
+     */
+    private static class Node
+      {
+        private int data;
+        private Node next;
+        private Node prev;
+
+
+        /**
+         * Construct a node with the given data value.
+         */
+        public Node(int data)
+          {
+            this.data = data;
+          }
+      }
+
+
+    /**
+     * An iterator for this list that returns unboxed values.
+     */
+    private static class IntListIterator implements PrimitiveIterator.OfInt
+      {
+        private Node nextElement;
+
+
+        /**
+         * Construct an iterator initialized to the first element in the list.
+         */
+        public IntListIterator(Node head)
+          {
+            nextElement = head;
+          }
+
+
+        /**
+         * Returns true if the iteration has more elements.
+         */
+        @Override
+        public boolean hasNext()
+          {
+            return nextElement != null;
+          }
+
+
+        /**
+         * Returns the next element in the list.
+         *
+         * @throws NoSuchElementException if the iteration has no next element.
+         */
+        @Override
+        public int nextInt()
+          {
+            if (nextElement == null)
+                throw new NoSuchElementException();
+
+            int rtnval = nextElement.data;
+            nextElement = nextElement.next;
+            return rtnval;
+          }
+      }
+
+
+    /**
+     * A spliterator for this list.  As in LinkedList, trySplit() copies
+     * a batch of values from the front into an array, with each batch
+     * larger than the last, and the spliterator is late-binding and
+     * fail-fast.
+     */
+    private static class IntListSpliterator implements Spliterator.OfInt
+      {
+        private static final int BATCH_UNIT = 1 << 10;
+        private static final int MAX_BATCH  = 1 << 25;
+
+        private final IntLinkedList list;
+        private Node current;    // next node to be returned
+        private int remaining;   // number of elements not yet returned, or -1 before binding
+        private int batch;       // size of the previous batch
+        private int expectedModCount;
+
+
+        /**
+         * Construct a spliterator over the given list.
+         */
+        public IntListSpliterator(IntLinkedList list)
+          {
+            this.list = list;
+            remaining = -1;
+            batch = 0;
+          }
+
+
+        /**
+         * Helper method: Binds to the list on first use and returns the
+         * number of elements not yet returned.
+         */
+        private int getRemaining()
+          {
+            if (remaining < 0)
+              {
+                current = list.first;
+                remaining = list.size;
+                expectedModCount = list.modCount;
+              }
+
+            return remaining;
+          }
+
+
+        /**
+         * Helper method: Throws ConcurrentModificationException if the list
+         * has been structurally modified since this spliterator was bound.
+         */
+        private void checkForComodification()
+          {
+            if (list.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+          }
+
+
+        @Override
+        public boolean tryAdvance(IntConsumer action)
+          {
+            if (getRemaining() <= 0)
+                return false;
+
+            checkForComodification();
+            int data = current.data;
+            current = current.next;
+            --remaining;
+            action.accept(data);
+            return true;
+          }
+
+
+        @Override
+        public void forEachRemaining(IntConsumer action)
+          {
+            int n = getRemaining();
+            Node node = current;
+            for (int i = n;  i > 0;  --i)
+              {
+                checkForComodification();
+                action.accept(node.data);
+                node = node.next;
+              }
+
+            current = node;
+            remaining = 0;
+          }
+
+
+        @Override
+        public Spliterator.OfInt trySplit()
+          {
+            if (getRemaining() <= 1)
+                return null;
+
+            checkForComodification();
+            int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+            int[] array = new int[n];
+            Node node = current;
+
+            for (int i = 0;  i < n;  ++i)
+              {
+                array[i] = node.data;
+                node = node.next;
+              }
+
+            current = node;
+            remaining -= n;
+            batch = n;
+
+            return Spliterators.spliterator(array, 0, n, Spliterator.ORDERED);
+          }
+
+
+        @Override
+        public long estimateSize()
+          {
+            return getRemaining();
+          }
+
+
+        @Override
+        public int characteristics()
+          {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+          }
+      }
+
+
+    /**
+     * Helper method: Checks that the specified index is between 0 and size - 1.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    private void checkIndex(int index)
+      {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+      }
+
+
+    /**
+     * Helper method: Find the node at a specified index, walking from the
+     * first node, the last node, or the cursor, whichever is closest.
+     * The node found becomes the new cursor.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    private Node getNode(int index)
+      {
+        checkIndex(index);
+
+        Node node;
+        int nodeIndex;
+
+        if (index < size - 1 - index)
+          {
+            node = first;
+            nodeIndex = 0;
+          }
+        else
+          {
+            node = last;
+            nodeIndex = size - 1;
+          }
+
+        if (cursor != null && Math.abs(cursorIndex - index) < Math.abs(nodeIndex - index))
+          {
+            node = cursor;
+            nodeIndex = cursorIndex;
+          }
+
+        for (;  nodeIndex < index;  ++nodeIndex)
+            node = node.next;
+        for (;  nodeIndex > index;  --nodeIndex)
+            node = node.prev;
+
+        cursor = node;
+        cursorIndex = index;
+        return node;
+      }
+
+
+    /**
+     * Helper method: Links a new node containing value immediately before
+     * the node succ, or at the end of the list if succ is null.  Does not
+     * update the cursor.
+     */
+    private void linkBefore(int value, Node succ)
+      {
+        Node newNode = new Node(value);
+        Node pred = (succ == null) ? last : succ.prev;
+
+        newNode.prev = pred;
+        newNode.next = succ;
+
+        if (pred == null)
+            first = newNode;
+        else
+            pred.next = newNode;
+
+        if (succ == null)
+            last = newNode;
+        else
+            succ.prev = newNode;
+
+        ++size;
+        ++modCount;
+      }
+
+
+    /**
+     * Helper method: Unlinks the specified node from the list and returns
+     * its data value.  Does not update the cursor.
+     */
+    private int unlink(Node node)
+      {
+        Node pred = node.prev;
+        Node succ = node.next;
+
+        if (pred == null)
+            first = succ;
+        else
+            pred.next = succ;
+
+        if (succ == null)
+            last = pred;
+        else
+            succ.prev = pred;
+
+        node.next = null;
+        node.prev = null;
+        --size;
+        ++modCount;
+
+        return node.data;
+      }
+
+
+    /**
+     * Constructs an empty list.
+     */
+    public IntLinkedList()
+      {
+        first = null;
+        last = null;
+        size = 0;
+        cursor = null;
+      }
+
+
+    /**
+     * Appends the specified value to the end of the list.
+     */
+    public void add(int value)
+      {
+        linkBefore(value, null);
+      }
+
+
+    /**
+     * Inserts the specified value at the specified position in the list.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt; size()</tt>)
+     */
+    public void add(int index, int value)
+      {
+        if (index == size)
+            linkBefore(value, null);
+        else
+          {
+            // do not need explicit index check since getNode() does it for us
+            Node succ = getNode(index);
+            linkBefore(value, succ);
+
+            // the cursor node has moved up one position
+            ++cursorIndex;
+          }
+      }
+
+
+    /**
+     * Inserts the specified value at the front of the list.
+     */
+    public void addFirst(int value)
+      {
+        linkBefore(value, first);
+
+        if (cursor != null)
+            ++cursorIndex;
+      }
+
+
+    /**
+     * Appends the specified value to the end of the list.
+     * Equivalent to add(int).
+     */
+    public void addLast(int value)
+      {
+        linkBefore(value, null);
+      }
+
+
+    /**
+     * Removes all of the elements from this list.
+     */
+    public void clear()
+      {
+        while (first != null)
+          {
+            Node temp = first;
+            first = first.next;
+
+            temp.next = null;
+            temp.prev = null;
+          }
+
+        last = null;
+        size = 0;
+        cursor = null;
+        ++modCount;
+      }
+
+
+    /**
+     * Returns the value at the specified position in this list.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public int get(int index)
+      {
+        return getNode(index).data;
+      }
+
+
+    /**
+     * Replaces the value at the specified position in this list
+     * with the specified value.
+     *
+     * @returns The value previously at index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public int set(int index, int newValue)
+      {
+        Node curr = getNode(index);
+        int rtnval = curr.data;
+        curr.data = newValue;
+        return rtnval;
+      }
+
+
+    /**
+     * Returns the index of the first occurrence of the specified value
+     * in this list, or -1 if this list does not contain the value.
+     */
+    public int indexOf(int value)
+      {
+        int index = 0;
+
+        for (Node node = first;  node != null;  node = node.next)
+          {
+            if (node.data == value)
+                return index;
+            else
+                index++;
+          }
+
+        return -1;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains the specified value.
+     */
+    public boolean contains(int value)
+      {
+        return indexOf(value) >= 0;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     */
+    public boolean isEmpty()
+      {
+        return this.size == 0;
+      }
+
+
+    /**
+     * Removes the value at the specified position in this list.  Shifts
+     * any subsequent values to the left (subtracts one from their indices).
+     *
+     * @returns the value previously at the specified position
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public int remove(int index)
+      {
+        // do not need explicit index check since getNode() does it for us
+        Node node = getNode(index);
+
+        // move the cursor off the node being removed
+        cursor = node.next;
+        if (cursor == null)
+          {
+            cursor = node.prev;
+            --cursorIndex;
+          }
+
+        return unlink(node);
+      }
+
+
+    /**
+     * Removes and returns the first value of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public int removeFirst()
+      {
+        if (first == null)
+            throw new NoSuchElementException();
+
+        if (cursor == first)
+            cursor = null;
+        else if (cursor != null)
+            --cursorIndex;
+
+        return unlink(first);
+      }
+
+
+    /**
+     * Removes and returns the last value of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public int removeLast()
+      {
+        if (last == null)
+            throw new NoSuchElementException();
+
+        if (cursor == last)
+            cursor = null;
+
+        return unlink(last);
+      }
+
+
+    /**
+     * Returns the first value of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public int getFirst()
+      {
+        if (first == null)
+            throw new NoSuchElementException();
+
+        return first.data;
+      }
+
+
+    /**
+     * Returns the last value of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public int getLast()
+      {
+        if (last == null)
+            throw new NoSuchElementException();
+
+        return last.data;
+      }
+
+
+    /**
+     * Returns the number of elements in this list.
+     */
+    public int size()
+      {
+        return this.size;
+      }
+
+
+    /**
+     * Returns an array containing the values in this list in proper sequence.
+     */
+    public int[] toArray()
+      {
+        int[] rtnval = new int[size];
+        int i = 0;
+
+        for (Node node = first;  node != null;  node = node.next)
+            rtnval[i++] = node.data;
+
+        return rtnval;
+      }
+
+
+    /**
+     * Returns an iterator over the values in this list in proper sequence.
+     */
+    public PrimitiveIterator.OfInt iterator()
+      {
+        return new IntListIterator(first);
+      }
+
+
+    /**
+     * Returns a spliterator over the values in this list in proper
+     * sequence.  The spliterator reports SIZED, SUBSIZED, and ORDERED.
+     */
+    public Spliterator.OfInt spliterator()
+      {
+        return new IntListSpliterator(this);
+      }
+
+
+    /**
+     * Returns a sequential IntStream with this list as its source.
+     */
+    public IntStream stream()
+      {
+        return StreamSupport.intStream(spliterator(), false);
+      }
+
+
+    /**
+     * Returns a possibly parallel IntStream with this list as its source.
+     */
+    public IntStream parallelStream()
+      {
+        return StreamSupport.intStream(spliterator(), true);
+      }
+
+
+    /**
+     * Returns a string representation of this list.
+     */
+    @Override
+    public String toString()
+      {
+        StringBuilder rtnval = new StringBuilder("[");
+        String separator = "";
+
+        for (Node node = first;  node != null;  node = node.next)
+          {
+            rtnval.append(separator).append(node.data);
+            separator = ", ";
+          }
+
+        return rtnval.append(']').toString();
+      }
+
+
+    /**
+     * Writes this list in a compact binary form: the size as an int,
+     * followed by each value as written by DataOutput.writeInt().
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(DataOutput out) throws IOException
+      {
+        out.writeInt(size);
+
+        for (Node node = first;  node != null;  node = node.next)
+            out.writeInt(node.data);
+      }
+
+
+    /**
+     * Reads a list in the binary form written by writeTo(DataOutput).
+     *
+     * @throws IOException if an I/O error occurs or the size is negative.
+     */
+    public static IntLinkedList readFrom(DataInput in) throws IOException
+      {
+        int size = in.readInt();
+        if (size < 0)
+            throw new IOException("Invalid list size: " + size);
+
+        IntLinkedList list = new IntLinkedList();
+        for (int i = 0;  i < size;  ++i)
+            list.linkBefore(in.readInt(), null);
+
+        return list;
+      }
+
+
+    /**
+     * Compares the specified object with this list for equality. Returns true
+     * if and only if both lists contain the same values in the same order.
+     */
+    @Override
+    public boolean equals(Object obj)
+      {
+        if (obj == this)
+            return true;
+
+        if (!(obj instanceof IntLinkedList))
+            return false;
+
+        IntLinkedList listObj = (IntLinkedList) obj;
+
+        if (size != listObj.size)
+            return false;
+
+        Node node1 = first;
+        Node node2 = listObj.first;
+
+        while (node1 != null)
+          {
+            if (node1.data != node2.data)
+                return false;
+
+            node1 = node1.next;
+            node2 = node2.next;
+          }
+
+        return true;
+      }
+
+
+    /**
+     * Returns the hash code value for this list.  The value is the same as
+     * for a LinkedList&lt;Integer&gt; containing the same values.
+     */
+    @Override
+    public int hashCode()
+      {
+        int hashCode = 1;
+
+        for (Node node = first;  node != null;  node = node.next)
+            hashCode = 31*hashCode + Integer.hashCode(node.data);
+
+        return hashCode;
+      }
+  }
@@ -1,8 +1,22 @@
 package edu.citadel.util;
 
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
@@ -10,6 +24,45 @@ import java.util.NoSuchElementException;
  * A List (also known as a <i>sequence</i>) is an ordered collection.
  * Elements in the list can be accessed by their integer index.  The
  * index of the first element in the list is zero.
+ * <p>
+ * The list is doubly linked, so operations at either end of the list
+ * take constant time, and an indexed access walks from whichever of the
+ * first node, the last node, or the most recently accessed node is
+ * closest.  Accessing the elements in index order, as in
+ * <tt>for (int i = 0; i &lt; list.size(); ++i) list.get(i)</tt>,
+ * therefore takes amortized constant time per element.
+ * <p>
+ * A list constructed with a node pool capacity keeps up to that many
+ * removed nodes on a free list and reuses them for later insertions, so
+ * a list used as a queue with a bounded backlog stops allocating once
+ * the pool has filled.  getNodesAllocated() and getNodesReused() report
+ * how many insertions needed a new node.
+ * <p>
+ * The iterators returned by iterator() and listIterator() support
+ * remove(), set(), and add() in constant time, so a list can be
+ * filtered or edited in a single pass.  They are <i>fail-fast</i>: if
+ * the list is structurally modified after an iterator is created, other
+ * than through the iterator itself, the iterator throws
+ * ConcurrentModificationException rather than risk arbitrary behavior.
+ * The spliterator used by stream() and parallelStream() is fail-fast in
+ * the same way from the time it first traverses or splits the list, so
+ * a stream never reads a node that has been removed or, in a pooled
+ * list, reused at a different position.
+ * <p>
+ * A list constructed as <i>indexed</i> also keeps a hash index from each
+ * distinct element to the nodes that contain it, linked together in list
+ * order.  contains() and an indexOf() that does not find its element then
+ * take expected constant time, and an indexOf() that does find its element
+ * takes time proportional to the distance from the element's position to
+ * the nearer end of the list (or to the most recently accessed position)
+ * without calling equals() along the way.  The index costs two extra
+ * references in every node and one hash table entry per distinct element,
+ * roughly 40 to 50 more bytes per element on a typical 64-bit JVM, and it
+ * assumes that the elements' hashCode() and equals() do not change while
+ * they are in the list.  Appending, prepending, and removing elements keep
+ * the index up to date in constant time; inserting or setting an element
+ * in the middle of the list when equal elements are already present takes
+ * time proportional to the distance to the nearest equal element.
  */
 public class LinkedList<E> implements Iterable<E>
   {
@@ -17,15 +70,52 @@ public class LinkedList<E> implements Iterable<E>
     private Node<E> last;    // reference to the last node
     private int size;        // number of elements in the list
 
+    private Node<E> cursor;      // most recently accessed node, or null
+    private int cursorIndex;     // index of cursor when cursor != null
+
+    private final int poolCapacity;  // maximum number of free nodes; 0 disables pooling
+    private Node<E> pool;            // free nodes linked through next, or null
+    private int poolSize;            // number of nodes in the pool
+
+    private long nodesAllocated;     // insertions that created a new node
+    private long nodesReused;        // insertions that took a node from the pool
+
+    private int modCount;            // number of structural modifications, for iterators
+
+    private final HashMap<E, IndexedNode<E>> index;   // first node for each element, or null
+
+
+    /**
+     * Writes one element of a list to a DataOutput, for writeTo().
+     * For example, <tt>DataOutput::writeUTF</tt> writes String elements.
+     */
+    @FunctionalInterface
+    public interface ElementWriter<E>
+      {
+        void write(DataOutput out, E element) throws IOException;
+      }
+
 
     /**
-     * A list node contains the data value and a link to the next
-     * node in the linked list.
+     * Reads one element of a list from a DataInput, for readFrom().
+     * For example, <tt>DataInput::readUTF</tt> reads String elements.
+     */
+    @FunctionalInterface
+    public interface ElementReader<E>
+      {
+        E read(DataInput in) throws IOException;
+      }
+
+
+    /**
+     * A list node contains the data value and links to the next
+     * and previous nodes in the linked list.
      */
     private static class Node<E>
       {
         private E data;
         private Node<E> next;
+        private Node<E> prev;
 
 
         /**
@@ -49,19 +139,69 @@ public class LinkedList<E> implements Iterable<E>
 
 
     /**
-     *  An iterator for this singly-linked list.
+     * A node of an indexed list.  The nodes that contain equal elements
+     * form a chain in list order through nextEqual, whose first node is the
+     * one in the index.  The prevEqual link of the first node refers to the
+     * last node of the chain, so that the chain can be appended to in
+     * constant time.
+     */
+    private static class IndexedNode<E> extends Node<E>
+      {
+        private IndexedNode<E> nextEqual;
+        private IndexedNode<E> prevEqual;
+
+
+        /**
+         * Construct a node with the given data value.
+         */
+        public IndexedNode(E data)
+          {
+            super(data);
+          }
+      }
+
+
+    /**
+     * A list iterator for this list.  The iterator keeps a reference to the
+     * node that next() will return and to the node most recently returned,
+     * so remove(), set(), and add() take constant time.  The iterator is
+     * <i>fail-fast</i>: if the list is structurally modified other than
+     * through the iterator's own remove() or add(), the next call to the
+     * iterator throws ConcurrentModificationException.
      */
-    private static class LinkedListIterator<E> implements Iterator<E>
+    private class LinkedListIterator implements ListIterator<E>
       {
-        private Node<E> nextElement;
+        private Node<E> nextNode;       // node to be returned by next(), or null at the end
+        private Node<E> lastReturned;   // node returned by the last next() or previous(), or null
+        private int nextIndex;          // index of nextNode
+        private int expectedModCount = modCount;
 
 
         /**
-         * Construct an iterator initialized to the first element in the list.
+         * Construct an iterator positioned before the element at the
+         * specified index.
          */
-        public LinkedListIterator(Node<E> head)
+        public LinkedListIterator(int index)
           {
-            nextElement = head;
+            if (index == 0)
+                nextNode = first;
+            else if (index == size)
+                nextNode = null;
+            else
+                nextNode = getNode(index);
+
+            nextIndex = index;
+          }
+
+
+        /**
+         * Helper method: Throws ConcurrentModificationException if the list
+         * has been structurally modified other than through this iterator.
+         */
+        private void checkForComodification()
+          {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
           }
 
 
@@ -71,7 +211,7 @@ public class LinkedList<E> implements Iterable<E>
         @Override
         public boolean hasNext()
           {
-            return nextElement != null;
+            return nextIndex < size;
           }
 
 
@@ -83,27 +223,262 @@ public class LinkedList<E> implements Iterable<E>
         @Override
         public E next()
           {
-            if(this.hasNext()) {
-              E rtnval = nextElement.data;
-              nextElement = nextElement.next;
-              return rtnval;
-            }
-            else throw new NoSuchElementException();
+            checkForComodification();
+            if (!hasNext())
+                throw new NoSuchElementException();
+
+            lastReturned = nextNode;
+            nextNode = nextNode.next;
+            ++nextIndex;
+            return lastReturned.data;
           }
 
-        // Note: Do not have to implement other methods in interface
-        // Iterator since they have default implementations. The following
-        // is provided for versions of Java prior to version 8.
 
         /**
-         * Remove operation is not supported by this iterator.
+         * Returns true if there is an element before the iterator position.
+         */
+        @Override
+        public boolean hasPrevious()
+          {
+            return nextIndex > 0;
+          }
+
+
+        /**
+         * Returns the previous element in the list and moves the iterator
+         * position backwards.
          *
-         * @throws UnsupportedOperationException always.
+         * @throws NoSuchElementException if there is no previous element.
+         */
+        @Override
+        public E previous()
+          {
+            checkForComodification();
+            if (!hasPrevious())
+                throw new NoSuchElementException();
+
+            nextNode = (nextNode == null) ? last : nextNode.prev;
+            lastReturned = nextNode;
+            --nextIndex;
+            return lastReturned.data;
+          }
+
+
+        /**
+         * Returns the index of the element that next() would return.
+         */
+        @Override
+        public int nextIndex()
+          {
+            return nextIndex;
+          }
+
+
+        /**
+         * Returns the index of the element that previous() would return.
+         */
+        @Override
+        public int previousIndex()
+          {
+            return nextIndex - 1;
+          }
+
+
+        /**
+         * Removes the element most recently returned by next() or previous().
+         *
+         * @throws IllegalStateException if neither next() nor previous() has
+         *         been called since the last call to remove() or add().
          */
         @Override
         public void remove()
           {
-            throw new UnsupportedOperationException("remove");
+            checkForComodification();
+            if (lastReturned == null)
+                throw new IllegalStateException();
+
+            Node<E> lastNext = lastReturned.next;
+            unlink(lastReturned);
+
+            if (nextNode == lastReturned)
+                nextNode = lastNext;   // removed by previous(); the position is unchanged
+            else
+                --nextIndex;           // removed by next(); the position moves down
+
+            lastReturned = null;
+            cursor = null;
+            expectedModCount = modCount;
+          }
+
+
+        /**
+         * Replaces the element most recently returned by next() or
+         * previous() with the specified element.
+         *
+         * @throws IllegalStateException if neither next() nor previous() has
+         *         been called since the last call to remove() or add().
+         */
+        @Override
+        public void set(E element)
+          {
+            checkForComodification();
+            if (lastReturned == null)
+                throw new IllegalStateException();
+
+            setData(lastReturned, element);
+          }
+
+
+        /**
+         * Inserts the specified element immediately before the element
+         * that next() would return.
+         */
+        @Override
+        public void add(E element)
+          {
+            checkForComodification();
+
+            linkBefore(element, nextNode);
+            ++nextIndex;
+
+            lastReturned = null;
+            cursor = null;
+            expectedModCount = modCount;
+          }
+      }
+
+
+    /**
+     * A spliterator for this list.  Since a linked list cannot be split in
+     * the middle without walking to it, trySplit() copies a batch of
+     * elements from the front into an array and hands that off, with each
+     * batch larger than the last, so that the other threads of a parallel
+     * stream receive work quickly while the split itself stays cheap.
+     * <p>
+     * The spliterator is late-binding: it reads the list's first node,
+     * size, and modification count when it is first used, not when it is
+     * created, and from then on throws ConcurrentModificationException if
+     * the list has been structurally modified before it reads a node.
+     */
+    private static class LinkedListSpliterator<E> implements Spliterator<E>
+      {
+        private static final int BATCH_UNIT = 1 << 10;
+        private static final int MAX_BATCH  = 1 << 25;
+
+        private final LinkedList<E> list;
+        private Node<E> current;    // next node to be returned
+        private int remaining;      // number of elements not yet returned, or -1 before binding
+        private int batch;          // size of the previous batch
+        private int expectedModCount;
+
+
+        /**
+         * Construct a spliterator over the given list.
+         */
+        public LinkedListSpliterator(LinkedList<E> list)
+          {
+            this.list = list;
+            remaining = -1;
+            batch = 0;
+          }
+
+
+        /**
+         * Helper method: Binds to the list on first use and returns the
+         * number of elements not yet returned.
+         */
+        private int getRemaining()
+          {
+            if (remaining < 0)
+              {
+                current = list.first;
+                remaining = list.size;
+                expectedModCount = list.modCount;
+              }
+
+            return remaining;
+          }
+
+
+        /**
+         * Helper method: Throws ConcurrentModificationException if the list
+         * has been structurally modified since this spliterator was bound.
+         */
+        private void checkForComodification()
+          {
+            if (list.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+          }
+
+
+        @Override
+        public boolean tryAdvance(Consumer<? super E> action)
+          {
+            if (getRemaining() <= 0)
+                return false;
+
+            checkForComodification();
+            E data = current.data;
+            current = current.next;
+            --remaining;
+            action.accept(data);
+            return true;
+          }
+
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action)
+          {
+            int n = getRemaining();
+            Node<E> node = current;
+            for (int i = n;  i > 0;  --i)
+              {
+                checkForComodification();
+                action.accept(node.data);
+                node = node.next;
+              }
+
+            current = node;
+            remaining = 0;
+          }
+
+
+        @Override
+        public Spliterator<E> trySplit()
+          {
+            if (getRemaining() <= 1)
+                return null;
+
+            checkForComodification();
+            int n = Math.min(Math.min(batch + BATCH_UNIT, MAX_BATCH), remaining);
+            Object[] array = new Object[n];
+            Node<E> node = current;
+
+            for (int i = 0;  i < n;  ++i)
+              {
+                array[i] = node.data;
+                node = node.next;
+              }
+
+            current = node;
+            remaining -= n;
+            batch = n;
+
+            return Spliterators.spliterator(array, 0, n, Spliterator.ORDERED);
+          }
+
+
+        @Override
+        public long estimateSize()
+          {
+            return getRemaining();
+          }
+
+
+        @Override
+        public int characteristics()
+          {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
           }
       }
 
@@ -116,39 +491,406 @@ public class LinkedList<E> implements Iterable<E>
      */
     private void checkIndex(int index)
       {
-        if (index < 0 || index >= size)
-            throw new IndexOutOfBoundsException(Integer.toString(index));
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+      }
+
+
+    /**
+     * Helper method: Find the node at a specified index.  The walk
+     * starts from the first node, the last node, or the cursor, whichever
+     * is closest, and the node found becomes the new cursor.
+     *
+     * @return a reference to the node at the specified index
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    private Node<E> getNode(int index)
+      {
+        checkIndex(index);
+
+        Node<E> node;
+        int nodeIndex;
+
+        if (index < size - 1 - index)
+          {
+            node = first;
+            nodeIndex = 0;
+          }
+        else
+          {
+            node = last;
+            nodeIndex = size - 1;
+          }
+
+        if (cursor != null && Math.abs(cursorIndex - index) < Math.abs(nodeIndex - index))
+          {
+            node = cursor;
+            nodeIndex = cursorIndex;
+          }
+
+        for (;  nodeIndex < index;  ++nodeIndex)
+            node = node.next;
+        for (;  nodeIndex > index;  --nodeIndex)
+            node = node.prev;
+
+        cursor = node;
+        cursorIndex = index;
+        return node;
+      }
+
+
+    /**
+     * Helper method: Returns a node containing element, taken from the
+     * pool if one is available.
+     */
+    private Node<E> newNode(E element)
+      {
+        Node<E> node = pool;
+
+        if (node == null)
+          {
+            ++nodesAllocated;
+            return (index == null) ? new Node<>(element) : new IndexedNode<>(element);
+          }
+
+        pool = node.next;
+        --poolSize;
+        ++nodesReused;
+
+        node.data = element;
+        node.next = null;
+        return node;
+      }
+
+
+    /**
+     * Helper method: Clears the links and data value of a node that is no
+     * longer in the list and returns it to the pool if there is room.
+     */
+    private void freeNode(Node<E> node)
+      {
+        node.data = null;
+        node.prev = null;
+
+        if (index != null)
+          {
+            IndexedNode<E> indexedNode = (IndexedNode<E>) node;
+            indexedNode.nextEqual = null;
+            indexedNode.prevEqual = null;
+          }
+
+        if (poolSize < poolCapacity)
+          {
+            node.next = pool;
+            pool = node;
+            ++poolSize;
+          }
+        else
+            node.next = null;
+      }
+
+
+    /**
+     * Helper method: Links a new node containing element immediately
+     * before the node succ, or at the end of the list if succ is null.
+     * Does not update the cursor.
+     */
+    private void linkBefore(E element, Node<E> succ)
+      {
+        Node<E> newNode = newNode(element);
+        Node<E> pred = (succ == null) ? last : succ.prev;
+
+        newNode.prev = pred;
+        newNode.next = succ;
+
+        if (pred == null)
+            first = newNode;
+        else
+            pred.next = newNode;
+
+        if (succ == null)
+            last = newNode;
+        else
+            succ.prev = newNode;
+
+        ++size;
+        ++modCount;
+
+        if (index != null)
+            indexInsert(newNode);
+      }
+
+
+    /**
+     * Helper method: Unlinks the specified node from the list and returns
+     * its data value.  Does not update the cursor.
+     */
+    private E unlink(Node<E> node)
+      {
+        if (index != null)
+            indexRemove(node);
+
+        E rtnval = node.data;
+        Node<E> pred = node.prev;
+        Node<E> succ = node.next;
+
+        if (pred == null)
+            first = succ;
+        else
+            pred.next = succ;
+
+        if (succ == null)
+            last = pred;
+        else
+            succ.prev = pred;
+
+        freeNode(node);
+        --size;
+        ++modCount;
+
+        return rtnval;
+      }
+
+
+    /**
+     * Helper method: Replaces the data value of a node in the list,
+     * keeping the index up to date if there is one.
+     */
+    private void setData(Node<E> node, E newValue)
+      {
+        if (index == null)
+            node.data = newValue;
+        else
+          {
+            indexRemove(node);
+            node.data = newValue;
+            indexInsert(node);
+          }
+      }
+
+
+    /**
+     * Helper method: Adds a node that has just been linked into an indexed
+     * list to the chain for its element.  The node's place in the chain
+     * is found by walking away from it in both directions until an equal
+     * element or an end of the list is reached, so appending and
+     * prepending take constant time.
+     */
+    private void indexInsert(Node<E> node)
+      {
+        IndexedNode<E> indexedNode = (IndexedNode<E>) node;
+        IndexedNode<E> head = index.get(node.data);
+
+        if (head == null || node.next == null)
+          {
+            indexAppend(node, head);
+            return;
+          }
+
+        // find the equal node that will precede node in the chain, if any
+        IndexedNode<E> pred;
+        Node<E> back  = node.prev;
+        Node<E> ahead = node.next;
+
+        while (true)
+          {
+            if (back == null)
+              {
+                pred = null;
+                break;
+              }
+            if (ahead == null)
+              {
+                indexAppend(node, head);
+                return;
+              }
+            if (Objects.equals(back.data, node.data))
+              {
+                pred = (IndexedNode<E>) back;
+                break;
+              }
+            if (Objects.equals(ahead.data, node.data))
+              {
+                pred = (ahead == head) ? null : ((IndexedNode<E>) ahead).prevEqual;
+                break;
+              }
+
+            back  = back.prev;
+            ahead = ahead.next;
+          }
+
+        if (pred == null)
+          {
+            // node becomes the first node of the chain
+            indexedNode.nextEqual = head;
+            indexedNode.prevEqual = head.prevEqual;
+            head.prevEqual = indexedNode;
+            index.remove(node.data);
+            index.put(node.data, indexedNode);
+          }
+        else
+          {
+            indexedNode.nextEqual = pred.nextEqual;
+            indexedNode.prevEqual = pred;
+
+            if (pred.nextEqual == null)
+                head.prevEqual = indexedNode;
+            else
+                pred.nextEqual.prevEqual = indexedNode;
+
+            pred.nextEqual = indexedNode;
+          }
+      }
+
+
+    /**
+     * Helper method: Adds a node of an indexed list to the end of the chain
+     * whose first node is head, or starts a new chain if head is null.
+     * Every other node in the chain must come before node in the list.
+     */
+    private void indexAppend(Node<E> node, IndexedNode<E> head)
+      {
+        IndexedNode<E> indexedNode = (IndexedNode<E>) node;
+        indexedNode.nextEqual = null;
+
+        if (head == null)
+          {
+            indexedNode.prevEqual = indexedNode;
+            index.put(node.data, indexedNode);
+          }
+        else
+          {
+            indexedNode.prevEqual = head.prevEqual;
+            head.prevEqual.nextEqual = indexedNode;
+            head.prevEqual = indexedNode;
+          }
+      }
+
+
+    /**
+     * Helper method: Removes a node of an indexed list from the chain for
+     * its element.  The node must still contain its element.
+     */
+    private void indexRemove(Node<E> node)
+      {
+        IndexedNode<E> indexedNode = (IndexedNode<E>) node;
+        IndexedNode<E> head = index.get(node.data);
+        IndexedNode<E> next = indexedNode.nextEqual;
+        IndexedNode<E> prev = indexedNode.prevEqual;
+
+        if (indexedNode == head)
+          {
+            // remove the key too, so that the index does not keep the old element
+            index.remove(node.data);
+            if (next != null)
+              {
+                Node<E> nextNode = next;
+                next.prevEqual = prev;
+                index.put(nextNode.data, next);
+              }
+          }
+        else
+          {
+            prev.nextEqual = next;
+
+            if (next == null)
+                head.prevEqual = prev;
+            else
+                next.prevEqual = prev;
+          }
+
+        indexedNode.nextEqual = null;
+        indexedNode.prevEqual = null;
+      }
+
+
+    /**
+     * Helper method: Returns the index of the specified node, walking from
+     * it in both directions until the first node, the last node, or the
+     * cursor is reached.  The node becomes the new cursor.
+     */
+    private int positionOf(Node<E> node)
+      {
+        Node<E> back  = node;
+        Node<E> ahead = node;
+        int position;
+
+        for (int distance = 0;  ;  ++distance)
+          {
+            if (back == first)
+              {
+                position = distance;
+                break;
+              }
+            if (ahead == last)
+              {
+                position = size - 1 - distance;
+                break;
+              }
+            if (cursor != null && back == cursor)
+              {
+                position = cursorIndex + distance;
+                break;
+              }
+            if (cursor != null && ahead == cursor)
+              {
+                position = cursorIndex - distance;
+                break;
+              }
+
+            back  = back.prev;
+            ahead = ahead.next;
+          }
+
+        cursor = node;
+        cursorIndex = position;
+        return position;
+      }
+
+
+    /**
+     * Constructs an empty list.
+     */
+    public LinkedList()
+      {
+        this(0, false);
       }
 
 
     /**
-     * Helper method: Find the node at a specified index.
-     *
-     * @return a reference to the node at the specified index
+     * Constructs an empty list that keeps up to nodePoolCapacity removed
+     * nodes for reuse by later insertions.  A capacity of zero disables
+     * pooling.
      *
-     * @throws IndexOutOfBoundsException if the index is out of range
-     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     * @throws IllegalArgumentException if the capacity is negative.
      */
-    private Node<E> getNode(int index)
+    public LinkedList(int nodePoolCapacity)
       {
-        checkIndex(index);
-        Node<E> node = first;
-
-        for (int i = 0;  i < index;  ++i)
-            node = node.next;
-
-        return node;
+        this(nodePoolCapacity, false);
       }
 
 
     /**
-     * Constructs an empty list.
+     * Constructs an empty list with the specified node pool capacity that,
+     * if indexed is true, keeps a hash index of its elements so that
+     * contains() and indexOf() do not scan the list.  See the class
+     * description for the memory cost of the index.
+     *
+     * @throws IllegalArgumentException if the capacity is negative.
      */
-    public LinkedList()
+    public LinkedList(int nodePoolCapacity, boolean indexed)
       {
+        if (nodePoolCapacity < 0)
+            throw new IllegalArgumentException("Illegal capacity: " + nodePoolCapacity);
+
         first = null;
         last = null;
         size = 0;
+        cursor = null;
+        poolCapacity = nodePoolCapacity;
+        index = indexed ? new HashMap<>() : null;
       }
 
 
@@ -157,18 +899,7 @@ public class LinkedList<E> implements Iterable<E>
      */
     public void add(E element)
       {
-        if (isEmpty())
-          {
-            first = new Node<E>(element);
-            last = first;
-          }
-        else
-          {
-            last.next = new Node<E>(element);
-            last = last.next;
-          }
-
-        ++size;
+        linkBefore(element, null);
       }
 
 
@@ -180,31 +911,39 @@ public class LinkedList<E> implements Iterable<E>
      */
     public void add(int index, E element)
       {
-        Node<E> curr = first;
-        Node<E> newNode = new Node<>(element);
+        if (index == size)
+            linkBefore(element, null);
+        else
+          {
+            // do not need explicit index check since getNode() does it for us
+            Node<E> succ = getNode(index);
+            linkBefore(element, succ);
 
-        // If inserting at index 0, empty or not
-        if(index == 0) {
-          newNode.next = first;
-          first = newNode;
-          if(size == 0)
-            last = newNode;
-        }
-
-        // If not empty and inserting in last index
-        else if(index == this.size) {
-          last.next = newNode;
-          last = newNode;
-        }
-
-        // If inserting anywhere else
-        else {
-          checkIndex(index);
-          curr = getNode(index - 1);
-          newNode.next = curr.next;
-          curr.next = newNode;
-        }
-        ++size;
+            // the cursor node has moved up one position
+            ++cursorIndex;
+          }
+      }
+
+
+    /**
+     * Inserts the specified element at the front of the list.
+     */
+    public void addFirst(E element)
+      {
+        linkBefore(element, first);
+
+        if (cursor != null)
+            ++cursorIndex;
+      }
+
+
+    /**
+     * Appends the specified element to the end of the list.
+     * Equivalent to add(E).
+     */
+    public void addLast(E element)
+      {
+        linkBefore(element, null);
       }
 
 
@@ -217,13 +956,16 @@ public class LinkedList<E> implements Iterable<E>
           {
              Node<E> temp = first;
              first = first.next;
-
-             temp.data = null;
-             temp.next = null;
+             freeNode(temp);
           }
 
+        if (index != null)
+            index.clear();
+
         last = null;
         size = 0;
+        ++modCount;
+        cursor = null;
       }
 
 
@@ -253,7 +995,7 @@ public class LinkedList<E> implements Iterable<E>
       {
         Node<E> curr = getNode(index);
         E rtnval = curr.data;
-        curr.data = newValue;
+        setData(curr, newValue);
         return rtnval;
       }
 
@@ -264,6 +1006,12 @@ public class LinkedList<E> implements Iterable<E>
      */
     public int indexOf(Object obj)
       {
+        if (this.index != null)
+          {
+            IndexedNode<E> node = this.index.get(obj);
+            return (node == null) ? -1 : positionOf(node);
+          }
+
         int index = 0;
 
         if (obj == null)
@@ -291,6 +1039,19 @@ public class LinkedList<E> implements Iterable<E>
     }
 
 
+    /**
+     * Returns <tt>true</tt> if this list contains the specified element.
+     * Takes expected constant time if this list is indexed.
+     */
+    public boolean contains(Object obj)
+      {
+        if (index != null)
+            return index.containsKey(obj);
+        else
+            return indexOf(obj) >= 0;
+      }
+
+
     /**
      * Returns <tt>true</tt> if this list contains no elements.
      */
@@ -311,32 +1072,262 @@ public class LinkedList<E> implements Iterable<E>
      */
     public E remove(int index)
       {
-        checkIndex(index);
-        E rtnval;
-        // If removing first item, empty or not
-        if(index == 0) {
-          rtnval = first.data;
-          if(size > 0)
-            first = first.next;
-          else {
+        // do not need explicit index check since getNode() does it for us
+        Node<E> node = getNode(index);
+
+        // move the cursor off the node being removed
+        cursor = node.next;
+        if (cursor == null)
+          {
+            cursor = node.prev;
+            --cursorIndex;
+          }
+
+        return unlink(node);
+      }
+
+
+    /**
+     * Removes and returns the first element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E removeFirst()
+      {
+        if (first == null)
+            throw new NoSuchElementException();
+
+        if (cursor == first)
+            cursor = null;
+        else if (cursor != null)
+            --cursorIndex;
+
+        return unlink(first);
+      }
+
+
+    /**
+     * Removes and returns the last element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E removeLast()
+      {
+        if (last == null)
+            throw new NoSuchElementException();
+
+        if (cursor == last)
+            cursor = null;
+
+        return unlink(last);
+      }
+
+
+    /**
+     * Returns the first element of this list, or null if this list is empty.
+     */
+    public E peekFirst()
+      {
+        return (first == null) ? null : first.data;
+      }
+
+
+    /**
+     * Returns the last element of this list, or null if this list is empty.
+     */
+    public E peekLast()
+      {
+        return (last == null) ? null : last.data;
+      }
+
+
+    /**
+     * Appends all of the elements of the specified collection to the end
+     * of this list, in the order returned by its iterator.  Takes time
+     * proportional to the number of elements added.
+     *
+     * @return true if this list changed as a result of the call.
+     */
+    public boolean addAll(Iterable<? extends E> elements)
+      {
+        int oldSize = size;
+
+        if (elements == this)
+          {
+            // append a copy of the current elements, not the growing list
+            Node<E> node = first;
+            for (int i = 0;  i < oldSize;  ++i)
+              {
+                linkBefore(node.data, null);
+                node = node.next;
+              }
+          }
+        else
+          {
+            for (E element : elements)
+                linkBefore(element, null);
+          }
+
+        return size != oldSize;
+      }
+
+
+    /**
+     * Removes all of the elements of this list that satisfy the specified
+     * predicate, in a single pass over the list.
+     *
+     * @return true if any elements were removed.
+     */
+    public boolean removeIf(Predicate<? super E> filter)
+      {
+        int oldSize = size;
+        Node<E> node = first;
+
+        // forget the cursor first, since the filter may throw after its node is unlinked
+        cursor = null;
+
+        while (node != null)
+          {
+            Node<E> next = node.next;
+            if (filter.test(node.data))
+                unlink(node);
+            node = next;
+          }
+
+        return size != oldSize;
+      }
+
+
+    /**
+     * Retains only the elements of this list that are contained in the
+     * specified collection.  Makes a single pass over this list, calling
+     * contains() once per element, so the total time is linear when the
+     * collection has a constant-time contains(), as a HashSet does.
+     *
+     * @return true if any elements were removed.
+     */
+    public boolean retainAll(Collection<?> elements)
+      {
+        return removeIf(element -> !elements.contains(element));
+      }
+
+
+    /**
+     * Moves all of the elements of the specified list to the end of this
+     * list in constant time.  The nodes of the other list are relinked
+     * rather than copied, and the other list is left empty.  If either
+     * list is indexed, the elements are copied instead, which takes time
+     * proportional to the size of the other list.
+     *
+     * @throws IllegalArgumentException if the specified list is this list.
+     */
+    public void concat(LinkedList<E> other)
+      {
+        if (other == this)
+            throw new IllegalArgumentException("Cannot concatenate a list to itself");
+
+        if (other.isEmpty())
+            return;
+
+        if (index != null || other.index != null)
+          {
+            addAll(other);
+            other.clear();
+            return;
+          }
+
+        if (isEmpty())
+            first = other.first;
+        else
+          {
+            last.next = other.first;
+            other.first.prev = last;
+          }
+
+        last  = other.last;
+        size += other.size;
+
+        other.first  = null;
+        other.last   = null;
+        other.size   = 0;
+        other.cursor = null;
+
+        ++modCount;
+        ++other.modCount;
+      }
+
+
+    /**
+     * Splits this list in two at the specified position.  This list keeps
+     * the elements before index, and the elements from index onward are
+     * moved, without copying, to a new list that is returned.  Takes time
+     * proportional to the distance from index to the nearer end of the
+     * list (or to the most recently accessed position), plus time
+     * proportional to the number of elements moved if this list is indexed.
+     * The new list has the same node pool capacity and is indexed if this
+     * list is indexed.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt; size()</tt>)
+     */
+    public LinkedList<E> splitAt(int index)
+      {
+        LinkedList<E> tail = new LinkedList<>(poolCapacity, this.index != null);
+
+        if (index == size)
+            return tail;
+
+        // do not need explicit index check since getNode() does it for us
+        Node<E> node = getNode(index);
+
+        if (this.index != null)
+          {
+            for (Node<E> moved = node;  moved != null;  moved = moved.next)
+                indexRemove(moved);
+          }
+
+        tail.first = node;
+        tail.last  = last;
+        tail.size  = size - index;
+
+        last = node.prev;
+        if (last == null)
             first = null;
-            last = null;
-          }
-        }
-        // If not empty and removing last item
-        else if(index == this.size-1) {
-          rtnval = last.data;
-          last = this.getNode(index-1);
-          last.next = null;
-        }
-        // If removing any other item
-        else {
-          Node<E> curr = getNode(index - 1);
-          rtnval = curr.next.data;
-          curr.next = curr.next.next;
-        }
-        --size;
-        return rtnval;
+        else
+            last.next = null;
+        node.prev = null;
+
+        size = index;
+        cursor = null;
+        ++modCount;
+
+        if (tail.index != null)
+          {
+            for (Node<E> moved = tail.first;  moved != null;  moved = moved.next)
+                tail.indexAppend(moved, tail.index.get(moved.data));
+          }
+
+        return tail;
+      }
+
+
+    /**
+     * Returns the number of insertions into this list that allocated a
+     * new node.
+     */
+    public long getNodesAllocated()
+      {
+        return nodesAllocated;
+      }
+
+
+    /**
+     * Returns the number of insertions into this list that reused a node
+     * from the node pool.
+     */
+    public long getNodesReused()
+      {
+        return nodesReused;
       }
 
 
@@ -351,37 +1342,148 @@ public class LinkedList<E> implements Iterable<E>
 
     /**
      * Returns an iterator over the elements in this list in proper sequence.
+     * The iterator supports remove() in constant time and is fail-fast.
      */
     @Override
     public Iterator<E> iterator()
       {
-        return new LinkedListIterator<>(first);
+        return new LinkedListIterator(0);
+      }
+
+
+    /**
+     * Returns a list iterator over the elements in this list in proper
+     * sequence.  The iterator's remove(), set(), and add() take constant
+     * time, and the iterator is fail-fast.
+     */
+    public ListIterator<E> listIterator()
+      {
+        return new LinkedListIterator(0);
+      }
+
+
+    /**
+     * Returns a list iterator over the elements in this list in proper
+     * sequence, starting at the specified position.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt; size()</tt>)
+     */
+    public ListIterator<E> listIterator(int index)
+      {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+
+        return new LinkedListIterator(index);
+      }
+
+
+    /**
+     * Returns a spliterator over the elements in this list in proper
+     * sequence.  The spliterator reports SIZED, SUBSIZED, and ORDERED.
+     */
+    @Override
+    public Spliterator<E> spliterator()
+      {
+        return new LinkedListSpliterator<>(this);
+      }
+
+
+    /**
+     * Returns a sequential stream with this list as its source.
+     */
+    public Stream<E> stream()
+      {
+        return StreamSupport.stream(spliterator(), false);
+      }
+
+
+    /**
+     * Returns a possibly parallel stream with this list as its source.
+     */
+    public Stream<E> parallelStream()
+      {
+        return StreamSupport.stream(spliterator(), true);
       }
 
 
     /**
-     * Returns a string representation of this list.
+     * Returns a string representation of this list.  Takes time
+     * proportional to the total length of the string.
      */
     @Override
     public String toString()
       {
-        String rtnval = "[";
-        if(size > 0) {
-          Node<E> curr = this.first;
-          while(curr != null) {
-            if(curr.data == null) {
-              rtnval += "null, ";
-              curr = curr.next;
-            }
-            else {
-              rtnval += curr.data.toString() + ", ";
-              curr = curr.next;
-            }
-          }
-          rtnval = rtnval.substring(0, rtnval.length()-2);
-        }
-        rtnval += "]";
-        return rtnval;
+        StringBuilder rtnval = new StringBuilder("[");
+        String separator = "";
+
+        for (Node<E> node = first;  node != null;  node = node.next)
+          {
+            rtnval.append(separator).append(node.data);
+            separator = ", ";
+          }
+
+        return rtnval.append(']').toString();
+      }
+
+
+    /**
+     * Appends the string representation of this list, the same string
+     * that toString() returns, to the specified Appendable one element
+     * at a time, so that a large list can be written to a Writer without
+     * first building the whole string in memory.
+     *
+     * @throws IOException if the Appendable throws IOException.
+     */
+    public void writeTo(Appendable out) throws IOException
+      {
+        out.append('[');
+        String separator = "";
+
+        for (Node<E> node = first;  node != null;  node = node.next)
+          {
+            out.append(separator).append(String.valueOf(node.data));
+            separator = ", ";
+          }
+
+        out.append(']');
+      }
+
+
+    /**
+     * Writes this list in a compact binary form: the size as an int,
+     * followed by each element as written by the specified writer.  The
+     * list can be read back with readFrom() and a matching reader.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(DataOutput out, ElementWriter<? super E> writer) throws IOException
+      {
+        out.writeInt(size);
+
+        for (Node<E> node = first;  node != null;  node = node.next)
+            writer.write(out, node.data);
+      }
+
+
+    /**
+     * Reads a list in the binary form written by writeTo(DataOutput,
+     * ElementWriter), using the specified reader for the elements.
+     *
+     * @throws IOException if an I/O error occurs or the size is negative.
+     */
+    public static <E> LinkedList<E> readFrom(DataInput in, ElementReader<? extends E> reader)
+        throws IOException
+      {
+        int size = in.readInt();
+        if (size < 0)
+            throw new IOException("Invalid list size: " + size);
+
+        LinkedList<E> list = new LinkedList<>();
+        for (int i = 0;  i < size;  ++i)
+            list.linkBefore(reader.read(in), null);
+
+        return list;
       }
 
 
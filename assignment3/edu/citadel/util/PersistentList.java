@@ -0,0 +1,440 @@
+package edu.citadel.util;
+
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * An immutable, singly linked list.  A PersistentList is never changed
+ * after it is constructed: prepend() returns a new list whose first node
+ * refers to the old list, and tail() returns the list that follows the
+ * first element, so both take constant time and every version shares
+ * the nodes it has in common with the versions it was made from.
+ * <p>
+ * Since every field is final, a list can be handed to other threads
+ * without copying or locking, and readers never block a writer that is
+ * building newer versions.  A Builder collects elements with the usual
+ * mutating operations and returns the current contents as a
+ * PersistentList with snapshot() in constant time.
+ * <p>
+ * Each node also records the size and the hash code of the list that
+ * starts at it, so size() and hashCode() take constant time, and equals()
+ * stops as soon as it reaches a node shared by both lists or finds that
+ * the remaining sizes or hash codes differ.  The hash code is the one
+ * defined by java.util.List, the same value that LinkedList.hashCode()
+ * returns for the same elements.  Because it is computed when an element
+ * is prepended, the elements must not be modified in a way that changes
+ * their hash codes.
+ */
+public final class PersistentList<E> implements Iterable<E>
+  {
+    private static final PersistentList<Object> EMPTY = new PersistentList<>();
+
+    private final E head;                   // the first element, or null if empty
+    private final PersistentList<E> tail;   // the rest of the list, or null if empty
+    private final int size;                 // number of elements in this list
+    private final int hash;                 // java.util.List hash code of this list
+    private final int power;                // 31^size, to extend the hash code in front
+
+
+    /**
+     * Helper constructor: Constructs the empty list.
+     */
+    private PersistentList()
+      {
+        head  = null;
+        tail  = null;
+        size  = 0;
+        hash  = 1;
+        power = 1;
+      }
+
+
+    /**
+     * Helper constructor: Constructs the list with the specified first
+     * element followed by the elements of tail.
+     */
+    private PersistentList(E head, PersistentList<E> tail)
+      {
+        this.head = head;
+        this.tail = tail;
+        size  = tail.size + 1;
+        power = 31*tail.power;
+
+        // List.hashCode() of [head, rest...] = 31^n*(30 + h(head)) + List.hashCode() of [rest...]
+        hash  = tail.power*(30 + (head == null ? 0 : head.hashCode())) + tail.hash;
+      }
+
+
+    /**
+     * A mutable builder for persistent lists.  The builder operates on the
+     * front of the list only, since those are the operations that do not
+     * change any node that an earlier snapshot may share.  A builder is
+     * not thread-safe, but the snapshots it returns are.
+     */
+    public static final class Builder<E>
+      {
+        private PersistentList<E> current = empty();
+
+
+        /**
+         * Constructs a builder for an empty list.
+         */
+        public Builder()
+          {
+          }
+
+
+        /**
+         * Constructs a builder whose contents are initially the specified list.
+         */
+        public Builder(PersistentList<E> initial)
+          {
+            current = initial;
+          }
+
+
+        /**
+         * Inserts the specified element at the front of the list.
+         */
+        public Builder<E> addFirst(E element)
+          {
+            current = current.prepend(element);
+            return this;
+          }
+
+
+        /**
+         * Removes and returns the first element of the list.
+         *
+         * @throws NoSuchElementException if the list is empty.
+         */
+        public E removeFirst()
+          {
+            E rtnval = current.getFirst();
+            current = current.tail;
+            return rtnval;
+          }
+
+
+        /**
+         * Returns the first element of the list, or null if the list is empty.
+         */
+        public E peekFirst()
+          {
+            return current.head;
+          }
+
+
+        /**
+         * Removes all of the elements from the list.
+         */
+        public void clear()
+          {
+            current = empty();
+          }
+
+
+        /**
+         * Returns the number of elements in the list.
+         */
+        public int size()
+          {
+            return current.size;
+          }
+
+
+        /**
+         * Returns <tt>true</tt> if the list contains no elements.
+         */
+        public boolean isEmpty()
+          {
+            return current.size == 0;
+          }
+
+
+        /**
+         * Returns the current contents of the builder as an immutable list.
+         * Takes constant time; later changes to the builder do not affect
+         * the returned list.
+         */
+        public PersistentList<E> snapshot()
+          {
+            return current;
+          }
+      }
+
+
+    /**
+     * An iterator for this list.
+     */
+    private static class PersistentListIterator<E> implements Iterator<E>
+      {
+        private PersistentList<E> nextElement;
+
+
+        /**
+         * Construct an iterator initialized to the first element in the list.
+         */
+        public PersistentListIterator(PersistentList<E> list)
+          {
+            nextElement = list;
+          }
+
+
+        /**
+         * Returns true if the iteration has more elements.
+         */
+        @Override
+        public boolean hasNext()
+          {
+            return nextElement.size != 0;
+          }
+
+
+        /**
+         * Returns the next element in the list.
+         *
+         * @throws NoSuchElementException if the iteration has no next element.
+         */
+        @Override
+        public E next()
+          {
+            if (nextElement.size == 0)
+                throw new NoSuchElementException();
+
+            E rtnval = nextElement.head;
+            nextElement = nextElement.tail;
+            return rtnval;
+          }
+      }
+
+
+    /**
+     * Returns the empty list.
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> PersistentList<E> empty()
+      {
+        return (PersistentList<E>) EMPTY;
+      }
+
+
+    /**
+     * Returns a list containing the elements of the specified Iterable in
+     * the order returned by its iterator.  Takes time proportional to the
+     * number of elements.
+     */
+    public static <E> PersistentList<E> copyOf(Iterable<? extends E> elements)
+      {
+        ArrayList<E> array = new ArrayList<>();
+        for (E element : elements)
+            array.add(element);
+
+        PersistentList<E> rtnval = empty();
+        for (int i = array.size() - 1;  i >= 0;  --i)
+            rtnval = rtnval.prepend(array.get(i));
+
+        return rtnval;
+      }
+
+
+    /**
+     * Returns a list consisting of the specified element followed by the
+     * elements of this list.  This list is unchanged.
+     */
+    public PersistentList<E> prepend(E element)
+      {
+        return new PersistentList<>(element, this);
+      }
+
+
+    /**
+     * Returns the list of all elements of this list after the first.
+     * This list is unchanged.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public PersistentList<E> tail()
+      {
+        if (size == 0)
+            throw new NoSuchElementException();
+
+        return tail;
+      }
+
+
+    /**
+     * Returns the first element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E getFirst()
+      {
+        if (size == 0)
+            throw new NoSuchElementException();
+
+        return head;
+      }
+
+
+    /**
+     * Returns the first element of this list, or null if this list is empty.
+     */
+    public E peekFirst()
+      {
+        return head;
+      }
+
+
+    /**
+     * Returns the element at the specified position in this list.  Takes
+     * time proportional to the index.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public E get(int index)
+      {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+
+        PersistentList<E> list = this;
+        for (int i = 0;  i < index;  ++i)
+            list = list.tail;
+
+        return list.head;
+      }
+
+
+    /**
+     * Returns the index of the first occurrence of the specified element
+     * in this list, or -1 if this list does not contain the element.
+     */
+    public int indexOf(Object obj)
+      {
+        int index = 0;
+
+        for (PersistentList<E> list = this;  list.size != 0;  list = list.tail)
+          {
+            if (obj == null ? list.head == null : obj.equals(list.head))
+                return index;
+            else
+                index++;
+          }
+
+        return -1;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains the specified element.
+     */
+    public boolean contains(Object obj)
+      {
+        return indexOf(obj) >= 0;
+      }
+
+
+    /**
+     * Returns a list with the elements of this list in reverse order.
+     */
+    public PersistentList<E> reverse()
+      {
+        PersistentList<E> rtnval = empty();
+
+        for (PersistentList<E> list = this;  list.size != 0;  list = list.tail)
+            rtnval = rtnval.prepend(list.head);
+
+        return rtnval;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     */
+    public boolean isEmpty()
+      {
+        return size == 0;
+      }
+
+
+    /**
+     * Returns the number of elements in this list.
+     */
+    public int size()
+      {
+        return size;
+      }
+
+
+    /**
+     * Returns an iterator over the elements in this list in proper sequence.
+     */
+    @Override
+    public Iterator<E> iterator()
+      {
+        return new PersistentListIterator<>(this);
+      }
+
+
+    /**
+     * Returns a string representation of this list.
+     */
+    @Override
+    public String toString()
+      {
+        StringBuilder rtnval = new StringBuilder("[");
+        String separator = "";
+
+        for (PersistentList<E> list = this;  list.size != 0;  list = list.tail)
+          {
+            rtnval.append(separator).append(list.head);
+            separator = ", ";
+          }
+
+        return rtnval.append(']').toString();
+      }
+
+
+    /*
+     * Compares the specified object with this list for equality. Returns true
+     * if and only if both lists contain the same elements in the same order.
+     */
+    @Override
+    public boolean equals(Object obj)
+      {
+        if (!(obj instanceof PersistentList))
+            return false;
+
+        PersistentList<?> list1 = this;
+        PersistentList<?> list2 = (PersistentList<?>) obj;
+
+        // stop at the first node the two lists share, if any
+        while (list1 != list2)
+          {
+            if (list1.size != list2.size || list1.hash != list2.hash)
+                return false;
+
+            if (list1.head == null ? list2.head != null : !list1.head.equals(list2.head))
+                return false;
+
+            list1 = list1.tail;
+            list2 = list2.tail;
+          }
+
+        return true;
+      }
+
+
+    /**
+     * Returns the hash code value for this list.
+     */
+    @Override
+    public int hashCode()
+      {
+        return hash;
+      }
+  }
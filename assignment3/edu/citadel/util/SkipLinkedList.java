@@ -0,0 +1,525 @@
+package edu.citadel.util;
+
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * This class implements a List by means of an indexable skip list, and
+ * provides the same operations as LinkedList.  The elements are kept in
+ * a linked list in index order, and each node is also linked into a
+ * random number of higher levels (<i>express lanes</i>), each of which
+ * skips about four times as many elements as the level below it.  Every
+ * link records its <i>span</i>, the number of elements it skips, so a
+ * search for an index can follow the longest link that does not pass it.
+ * <p>
+ * As a result get(), set(), add(int, E), and remove(int) take expected
+ * O(log n) time at any position, instead of time proportional to the
+ * distance from the nearer end of the list.  Operations at the ends of
+ * the list also take O(log n) time, and iteration, indexOf(), and
+ * contains() visit the elements in order as in LinkedList.  Each node
+ * holds two small arrays, one link and one span per level, so the list
+ * uses roughly three times the memory per element of a LinkedList.
+ */
+public class SkipLinkedList<E> implements Iterable<E>
+  {
+    private static final int MAX_LEVEL = 16;   // enough levels for 4^16 elements
+
+    private final Node head;   // dummy node before the first element, with all levels
+    private int levels;        // number of levels in use, at least 1
+    private int size;          // number of elements in the list
+
+    // set by findPredecessors(): the last node before a position at each
+    // level, and the position of that node (the head is at position 0)
+    private final Node[] update = new Node[MAX_LEVEL];
+    private final int[] rank = new int[MAX_LEVEL];
+
+
+    /**
+     * A list node contains the data value and, for each of its levels,
+     * the next node at that level and the number of elements from this
+     * node to that one.  The span of a null link is not used.
+     */
+    private static class Node
+      {
+        private Object data;
+        private final Node[] next;
+        private final int[] span;
+
+
+        /**
+         * Construct a node with the given data value and number of levels.
+         */
+        public Node(Object data, int levels)
+          {
+            this.data = data;
+            next = new Node[levels];
+            span = new int[levels];
+          }
+      }
+
+
+    /**
+     * An iterator that follows the bottom level of this list.
+     */
+    private static class SkipListIterator<E> implements Iterator<E>
+      {
+        private Node nextElement;
+
+
+        /**
+         * Construct an iterator initialized to the first element in the list.
+         */
+        public SkipListIterator(Node first)
+          {
+            nextElement = first;
+          }
+
+
+        /**
+         * Returns true if the iteration has more elements.
+         */
+        @Override
+        public boolean hasNext()
+          {
+            return nextElement != null;
+          }
+
+
+        /**
+         * Returns the next element in the list.
+         *
+         * @throws NoSuchElementException if the iteration has no next element.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next()
+          {
+            if (nextElement == null)
+                throw new NoSuchElementException();
+
+            E rtnval = (E) nextElement.data;
+            nextElement = nextElement.next[0];
+            return rtnval;
+          }
+      }
+
+
+    /**
+     * Constructs an empty list.
+     */
+    public SkipLinkedList()
+      {
+        head = new Node(null, MAX_LEVEL);
+        levels = 1;
+        size = 0;
+      }
+
+
+    /**
+     * Helper method: Checks that the specified index is between 0 and size - 1.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    private void checkIndex(int index)
+      {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+      }
+
+
+    /**
+     * Helper method: Find the node at a specified index by descending
+     * from the top level of the head node.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    private Node getNode(int index)
+      {
+        checkIndex(index);
+
+        // the element at index is at position index + 1
+        int target = index + 1;
+        Node node = head;
+        int position = 0;
+
+        for (int level = levels - 1;  level >= 0;  --level)
+          {
+            while (node.next[level] != null && position + node.span[level] <= target)
+              {
+                position += node.span[level];
+                node = node.next[level];
+              }
+          }
+
+        return node;
+      }
+
+
+    /**
+     * Helper method: Fills update and rank with the last node at each
+     * level whose position is at most index, that is, the nodes whose
+     * links pass over the element at the specified index.
+     */
+    private void findPredecessors(int index)
+      {
+        Node node = head;
+        int position = 0;
+
+        for (int level = levels - 1;  level >= 0;  --level)
+          {
+            while (node.next[level] != null && position + node.span[level] <= index)
+              {
+                position += node.span[level];
+                node = node.next[level];
+              }
+
+            update[level] = node;
+            rank[level] = position;
+          }
+      }
+
+
+    /**
+     * Helper method: Returns a random number of levels for a new node,
+     * where each level above the first is added with probability 1/4.
+     */
+    private static int randomLevels()
+      {
+        int bits = ThreadLocalRandom.current().nextInt() | (1 << 2*(MAX_LEVEL - 1));
+        return 1 + Integer.numberOfTrailingZeros(bits)/2;
+      }
+
+
+    /**
+     * Appends the specified element to the end of the list.
+     */
+    public void add(E element)
+      {
+        add(size, element);
+      }
+
+
+    /**
+     * Inserts the specified element at the specified position in the list.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt; size()</tt>)
+     */
+    public void add(int index, E element)
+      {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+
+        findPredecessors(index);
+
+        int nodeLevels = randomLevels();
+        if (nodeLevels > levels)
+          {
+            for (int level = levels;  level < nodeLevels;  ++level)
+              {
+                update[level] = head;
+                rank[level] = 0;
+              }
+            levels = nodeLevels;
+          }
+
+        Node newNode = new Node(element, nodeLevels);
+
+        for (int level = 0;  level < nodeLevels;  ++level)
+          {
+            // rank[0] - rank[level] elements lie between update[level] and the new node
+            int before = rank[0] - rank[level];
+
+            newNode.next[level] = update[level].next[level];
+            newNode.span[level] = update[level].span[level] - before;
+
+            update[level].next[level] = newNode;
+            update[level].span[level] = before + 1;
+          }
+
+        // the higher links that pass over the new node now skip one more element
+        for (int level = nodeLevels;  level < levels;  ++level)
+            ++update[level].span[level];
+
+        ++size;
+      }
+
+
+    /**
+     * Inserts the specified element at the front of the list.
+     */
+    public void addFirst(E element)
+      {
+        add(0, element);
+      }
+
+
+    /**
+     * Appends the specified element to the end of the list.
+     * Equivalent to add(E).
+     */
+    public void addLast(E element)
+      {
+        add(size, element);
+      }
+
+
+    /**
+     * Removes all of the elements from this list.
+     */
+    public void clear()
+      {
+        Arrays.fill(head.next, null);
+        levels = 1;
+        size = 0;
+      }
+
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index)
+      {
+        return (E) getNode(index).data;
+      }
+
+
+    /**
+     * Replaces the element at the specified position in this list
+     * with the specified element.
+     *
+     * @returns The data value previously at index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E newValue)
+      {
+        Node node = getNode(index);
+        E rtnval = (E) node.data;
+        node.data = newValue;
+        return rtnval;
+      }
+
+
+    /**
+     * Returns the index of the first occurrence of the specified element
+     * in this list, or -1 if this list does not contain the element.
+     */
+    public int indexOf(Object obj)
+      {
+        int index = 0;
+
+        for (Node node = head.next[0];  node != null;  node = node.next[0])
+          {
+            if (obj == null ? node.data == null : obj.equals(node.data))
+                return index;
+            else
+                index++;
+          }
+
+        return -1;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains the specified element.
+     */
+    public boolean contains(Object obj)
+      {
+        return indexOf(obj) >= 0;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     */
+    public boolean isEmpty()
+      {
+        return size == 0;
+      }
+
+
+    /**
+     * Removes the element at the specified position in this list.  Shifts
+     * any subsequent elements to the left (subtracts one from their indices).
+     *
+     * @returns the element previously at the specified position
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    @SuppressWarnings("unchecked")
+    public E remove(int index)
+      {
+        checkIndex(index);
+        findPredecessors(index);
+
+        Node node = update[0].next[0];
+
+        for (int level = 0;  level < levels;  ++level)
+          {
+            if (update[level].next[level] == node)
+              {
+                update[level].span[level] += node.span[level] - 1;
+                update[level].next[level] = node.next[level];
+              }
+            else
+                --update[level].span[level];
+          }
+
+        while (levels > 1 && head.next[levels - 1] == null)
+            --levels;
+
+        --size;
+
+        E rtnval = (E) node.data;
+        node.data = null;
+        Arrays.fill(node.next, null);
+        return rtnval;
+      }
+
+
+    /**
+     * Removes and returns the first element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E removeFirst()
+      {
+        if (size == 0)
+            throw new NoSuchElementException();
+
+        return remove(0);
+      }
+
+
+    /**
+     * Removes and returns the last element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E removeLast()
+      {
+        if (size == 0)
+            throw new NoSuchElementException();
+
+        return remove(size - 1);
+      }
+
+
+    /**
+     * Returns the first element of this list, or null if this list is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peekFirst()
+      {
+        return (size == 0) ? null : (E) head.next[0].data;
+      }
+
+
+    /**
+     * Returns the last element of this list, or null if this list is empty.
+     */
+    public E peekLast()
+      {
+        return (size == 0) ? null : get(size - 1);
+      }
+
+
+    /**
+     * Returns the number of elements in this list.
+     */
+    public int size()
+      {
+        return size;
+      }
+
+
+    /**
+     * Returns an iterator over the elements in this list in proper sequence.
+     */
+    @Override
+    public Iterator<E> iterator()
+      {
+        return new SkipListIterator<>(head.next[0]);
+      }
+
+
+    /**
+     * Returns a string representation of this list.
+     */
+    @Override
+    public String toString()
+      {
+        StringBuilder rtnval = new StringBuilder("[");
+        String separator = "";
+
+        for (Node node = head.next[0];  node != null;  node = node.next[0])
+          {
+            rtnval.append(separator).append(node.data);
+            separator = ", ";
+          }
+
+        return rtnval.append(']').toString();
+      }
+
+
+    /*
+     * Compares the specified object with this list for equality. Returns true
+     * if and only if both lists contain the same elements in the same order.
+     */
+    @Override
+    public boolean equals(Object obj)
+      {
+        if (obj == this)
+            return true;
+
+        if (!(obj instanceof SkipLinkedList))
+            return false;
+
+        SkipLinkedList<?> listObj = (SkipLinkedList<?>) obj;
+
+        if (size != listObj.size)
+            return false;
+
+        Node node2 = listObj.head.next[0];
+        for (Node node1 = head.next[0];  node1 != null;  node1 = node1.next[0])
+          {
+            if (node1.data == null ? node2.data != null : !node1.data.equals(node2.data))
+                return false;
+
+            node2 = node2.next[0];
+          }
+
+        return true;
+      }
+
+
+    /**
+     * Returns the hash code value for this list.
+     */
+    @Override
+    public int hashCode()
+      {
+        int hashCode = 1;
+
+        for (Node node = head.next[0];  node != null;  node = node.next[0])
+          {
+            Object obj = node.data;
+            hashCode = 31*hashCode + (obj == null ? 0 : obj.hashCode());
+          }
+
+        return hashCode;
+      }
+  }
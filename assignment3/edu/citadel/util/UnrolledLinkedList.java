@@ -0,0 +1,571 @@
+package edu.citadel.util;
+
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+
+/**
+ * This class implements a List by means of an unrolled linked list, and
+ * provides the same operations as LinkedList.  Each node (a <i>chunk</i>)
+ * holds up to CHUNK_CAPACITY elements in an array, so iteration, indexOf,
+ * and hashCode scan contiguous memory, and indexed access skips whole
+ * chunks at a time.  The per-element overhead is roughly one array slot
+ * rather than one node object.
+ * <p>
+ * Appending fills chunks completely.  A full chunk is split in two when
+ * an element is inserted into it, and a chunk that drops below half full
+ * is merged with the following chunk when the two fit in one, so chunks
+ * stay dense under mixed insertions and removals.
+ */
+public class UnrolledLinkedList<E> implements Iterable<E>
+  {
+    static final int CHUNK_CAPACITY = 64;
+
+    private Chunk first;   // reference to the first chunk
+    private Chunk last;    // reference to the last chunk
+    private int size;      // number of elements in the list
+
+    // set by findChunk(): the offset of the requested index in its chunk
+    private int foundOffset;
+
+
+    /**
+     * A chunk holds elements items[0..count-1] and links to its neighbors.
+     */
+    private static class Chunk
+      {
+        private final Object[] items = new Object[CHUNK_CAPACITY];
+        private int count;
+        private Chunk next;
+        private Chunk prev;
+      }
+
+
+    /**
+     * An iterator over the chunks of this list.
+     */
+    private static class UnrolledListIterator<E> implements Iterator<E>
+      {
+        private Chunk chunk;
+        private int offset;
+
+
+        /**
+         * Construct an iterator initialized to the first element in the list.
+         */
+        public UnrolledListIterator(Chunk head)
+          {
+            chunk = head;
+            offset = 0;
+          }
+
+
+        /**
+         * Returns true if the iteration has more elements.
+         */
+        @Override
+        public boolean hasNext()
+          {
+            return chunk != null;
+          }
+
+
+        /**
+         * Returns the next element in the list.
+         *
+         * @throws NoSuchElementException if the iteration has no next element.
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next()
+          {
+            if (chunk == null)
+                throw new NoSuchElementException();
+
+            E rtnval = (E) chunk.items[offset++];
+            if (offset == chunk.count)
+              {
+                chunk = chunk.next;
+                offset = 0;
+              }
+
+            return rtnval;
+          }
+      }
+
+
+    /**
+     * Constructs an empty list.
+     */
+    public UnrolledLinkedList()
+      {
+        first = null;
+        last = null;
+        size = 0;
+      }
+
+
+    /**
+     * Helper method: Checks that the specified index is between 0 and size - 1.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    private void checkIndex(int index)
+      {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+      }
+
+
+    /**
+     * Helper method: Finds the chunk containing the specified index by
+     * skipping whole chunks from the nearer end of the list, and sets
+     * foundOffset to the offset of the index within that chunk.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    private Chunk findChunk(int index)
+      {
+        checkIndex(index);
+
+        if (index < size/2)
+          {
+            Chunk chunk = first;
+            while (index >= chunk.count)
+              {
+                index -= chunk.count;
+                chunk = chunk.next;
+              }
+
+            foundOffset = index;
+            return chunk;
+          }
+        else
+          {
+            Chunk chunk = last;
+            int remaining = size - 1 - index;   // elements after index
+            while (remaining >= chunk.count)
+              {
+                remaining -= chunk.count;
+                chunk = chunk.prev;
+              }
+
+            foundOffset = chunk.count - 1 - remaining;
+            return chunk;
+          }
+      }
+
+
+    /**
+     * Helper method: Links a new, empty chunk after pred, or at the
+     * front of the list if pred is null.
+     */
+    private Chunk linkChunkAfter(Chunk pred)
+      {
+        Chunk chunk = new Chunk();
+        Chunk succ = (pred == null) ? first : pred.next;
+
+        chunk.prev = pred;
+        chunk.next = succ;
+
+        if (pred == null)
+            first = chunk;
+        else
+            pred.next = chunk;
+
+        if (succ == null)
+            last = chunk;
+        else
+            succ.prev = chunk;
+
+        return chunk;
+      }
+
+
+    /**
+     * Helper method: Unlinks the specified chunk from the list.
+     */
+    private void unlinkChunk(Chunk chunk)
+      {
+        if (chunk.prev == null)
+            first = chunk.next;
+        else
+            chunk.prev.next = chunk.next;
+
+        if (chunk.next == null)
+            last = chunk.prev;
+        else
+            chunk.next.prev = chunk.prev;
+
+        chunk.next = null;
+        chunk.prev = null;
+      }
+
+
+    /**
+     * Helper method: Inserts element at the specified offset of chunk,
+     * splitting the chunk first if it is full.
+     */
+    private void insert(Chunk chunk, int offset, E element)
+      {
+        if (chunk.count == CHUNK_CAPACITY)
+          {
+            // move the upper half into a new chunk
+            int half = CHUNK_CAPACITY/2;
+            Chunk upper = linkChunkAfter(chunk);
+            System.arraycopy(chunk.items, half, upper.items, 0, CHUNK_CAPACITY - half);
+            Arrays.fill(chunk.items, half, CHUNK_CAPACITY, null);
+            upper.count = CHUNK_CAPACITY - half;
+            chunk.count = half;
+
+            if (offset > half)
+              {
+                chunk = upper;
+                offset -= half;
+              }
+          }
+
+        System.arraycopy(chunk.items, offset, chunk.items, offset + 1, chunk.count - offset);
+        chunk.items[offset] = element;
+        ++chunk.count;
+        ++size;
+      }
+
+
+    /**
+     * Helper method: Removes and returns the element at the specified
+     * offset of chunk, merging or unlinking the chunk if it becomes sparse.
+     */
+    @SuppressWarnings("unchecked")
+    private E delete(Chunk chunk, int offset)
+      {
+        E rtnval = (E) chunk.items[offset];
+
+        System.arraycopy(chunk.items, offset + 1, chunk.items, offset, chunk.count - offset - 1);
+        chunk.items[--chunk.count] = null;
+        --size;
+
+        if (chunk.count == 0)
+            unlinkChunk(chunk);
+        else if (chunk.count < CHUNK_CAPACITY/2)
+          {
+            Chunk next = chunk.next;
+            if (next != null && chunk.count + next.count <= CHUNK_CAPACITY)
+              {
+                System.arraycopy(next.items, 0, chunk.items, chunk.count, next.count);
+                chunk.count += next.count;
+                unlinkChunk(next);
+              }
+          }
+
+        return rtnval;
+      }
+
+
+    /**
+     * Appends the specified element to the end of the list.
+     */
+    public void add(E element)
+      {
+        if (last == null || last.count == CHUNK_CAPACITY)
+            linkChunkAfter(last);
+
+        last.items[last.count++] = element;
+        ++size;
+      }
+
+
+    /**
+     * Inserts the specified element at the specified position in the list.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt; size()</tt>)
+     */
+    public void add(int index, E element)
+      {
+        if (index == size)
+            add(element);
+        else
+          {
+            Chunk chunk = findChunk(index);
+            insert(chunk, foundOffset, element);
+          }
+      }
+
+
+    /**
+     * Inserts the specified element at the front of the list.
+     */
+    public void addFirst(E element)
+      {
+        if (first == null)
+            add(element);
+        else
+            insert(first, 0, element);
+      }
+
+
+    /**
+     * Appends the specified element to the end of the list.
+     * Equivalent to add(E).
+     */
+    public void addLast(E element)
+      {
+        add(element);
+      }
+
+
+    /**
+     * Removes all of the elements from this list.
+     */
+    public void clear()
+      {
+        while (first != null)
+          {
+            Chunk temp = first;
+            first = first.next;
+
+            Arrays.fill(temp.items, 0, temp.count, null);
+            temp.next = null;
+            temp.prev = null;
+          }
+
+        last = null;
+        size = 0;
+      }
+
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index)
+      {
+        Chunk chunk = findChunk(index);
+        return (E) chunk.items[foundOffset];
+      }
+
+
+    /**
+     * Replaces the element at the specified position in this list
+     * with the specified element.
+     *
+     * @returns The data value previously at index
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    @SuppressWarnings("unchecked")
+    public E set(int index, E newValue)
+      {
+        Chunk chunk = findChunk(index);
+        E rtnval = (E) chunk.items[foundOffset];
+        chunk.items[foundOffset] = newValue;
+        return rtnval;
+      }
+
+
+    /**
+     * Returns the index of the first occurrence of the specified element
+     * in this list, or -1 if this list does not contain the element.
+     */
+    public int indexOf(Object obj)
+      {
+        int base = 0;
+
+        for (Chunk chunk = first;  chunk != null;  chunk = chunk.next)
+          {
+            Object[] items = chunk.items;
+            int count = chunk.count;
+
+            if (obj == null)
+              {
+                for (int i = 0;  i < count;  ++i)
+                    if (items[i] == null)
+                        return base + i;
+              }
+            else
+              {
+                for (int i = 0;  i < count;  ++i)
+                    if (obj.equals(items[i]))
+                        return base + i;
+              }
+
+            base += count;
+          }
+
+        return -1;
+      }
+
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     */
+    public boolean isEmpty()
+      {
+        return size == 0;
+      }
+
+
+    /**
+     * Removes the element at the specified position in this list.  Shifts
+     * any subsequent elements to the left (subtracts one from their indices).
+     *
+     * @returns the element previously at the specified position
+     *
+     * @throws IndexOutOfBoundsException if the index is out of range
+     *         (<tt>index &lt; 0 || index &gt;= size()</tt>)
+     */
+    public E remove(int index)
+      {
+        Chunk chunk = findChunk(index);
+        return delete(chunk, foundOffset);
+      }
+
+
+    /**
+     * Removes and returns the first element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E removeFirst()
+      {
+        if (first == null)
+            throw new NoSuchElementException();
+
+        return delete(first, 0);
+      }
+
+
+    /**
+     * Removes and returns the last element of this list.
+     *
+     * @throws NoSuchElementException if this list is empty.
+     */
+    public E removeLast()
+      {
+        if (last == null)
+            throw new NoSuchElementException();
+
+        return delete(last, last.count - 1);
+      }
+
+
+    /**
+     * Returns the first element of this list, or null if this list is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peekFirst()
+      {
+        return (first == null) ? null : (E) first.items[0];
+      }
+
+
+    /**
+     * Returns the last element of this list, or null if this list is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peekLast()
+      {
+        return (last == null) ? null : (E) last.items[last.count - 1];
+      }
+
+
+    /**
+     * Returns the number of elements in this list.
+     */
+    public int size()
+      {
+        return size;
+      }
+
+
+    /**
+     * Returns an iterator over the elements in this list in proper sequence.
+     */
+    @Override
+    public Iterator<E> iterator()
+      {
+        return new UnrolledListIterator<>(first);
+      }
+
+
+    /**
+     * Returns a string representation of this list.
+     */
+    @Override
+    public String toString()
+      {
+        StringBuilder rtnval = new StringBuilder("[");
+        String separator = "";
+
+        for (Chunk chunk = first;  chunk != null;  chunk = chunk.next)
+          {
+            for (int i = 0;  i < chunk.count;  ++i)
+              {
+                rtnval.append(separator).append(chunk.items[i]);
+                separator = ", ";
+              }
+          }
+
+        return rtnval.append(']').toString();
+      }
+
+
+    /*
+     * Compares the specified object with this list for equality. Returns true
+     * if and only if both lists contain the same elements in the same order.
+     */
+    @Override
+    public boolean equals(Object obj)
+      {
+        if (obj == this)
+            return true;
+
+        if (!(obj instanceof UnrolledLinkedList))
+            return false;
+
+        UnrolledLinkedList<?> listObj = (UnrolledLinkedList<?>) obj;
+
+        if (size != listObj.size)
+            return false;
+
+        Iterator<?> iter = listObj.iterator();
+        for (E element : this)
+          {
+            Object other = iter.next();
+            if (element == null ? other != null : !element.equals(other))
+                return false;
+          }
+
+        return true;
+      }
+
+
+    /**
+     * Returns the hash code value for this list.
+     */
+    @Override
+    public int hashCode()
+      {
+        int hashCode = 1;
+
+        for (Chunk chunk = first;  chunk != null;  chunk = chunk.next)
+          {
+            Object[] items = chunk.items;
+            for (int i = 0;  i < chunk.count;  ++i)
+              {
+                Object obj = items[i];
+                hashCode = 31*hashCode + (obj == null ? 0 : obj.hashCode());
+              }
+          }
+
+        return hashCode;
+      }
+  }
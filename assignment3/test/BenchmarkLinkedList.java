@@ -0,0 +1,873 @@
+package test;
+
+
+import edu.citadel.util.ConcurrentLinkedList;
+import edu.citadel.util.IntLinkedList;
+import edu.citadel.util.LinkedList;
+import edu.citadel.util.LongLinkedList;
+import edu.citadel.util.PersistentList;
+import edu.citadel.util.SkipLinkedList;
+import edu.citadel.util.UnrolledLinkedList;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * Simple timing driver for edu.citadel.util.LinkedList.  Each benchmark
+ * reports the average time per operation at increasing list sizes; an
+ * operation that takes constant time shows roughly the same time at
+ * every size, while a linear one grows tenfold with each row.
+ */
+public class BenchmarkLinkedList
+  {
+    private static final int[] SIZES = { 1_000, 10_000, 100_000, 1_000_000 };
+
+
+    public static void main(String[] args) throws IOException
+      {
+        // run everything twice so the second pass is measured after JIT warm-up
+        for (int pass = 1;  pass <= 2;  ++pass)
+          {
+            System.out.println("Pass " + pass);
+            benchmarkDeque();
+            benchmarkSequentialGet();
+            benchmarkUnrolled();
+            benchmarkConcurrent();
+            benchmarkStreams();
+            benchmarkBulk();
+            benchmarkPooling();
+            benchmarkPrimitive();
+            benchmarkOutput();
+            benchmarkIndexed();
+            benchmarkSkipList();
+            benchmarkPersistent();
+            benchmarkIteratorRemove();
+          }
+      }
+
+
+    /**
+     * Fills a list and then drains it from the tail with remove(size - 1),
+     * which used to walk the whole list, and with removeLast().
+     */
+    private static void benchmarkDeque()
+      {
+        System.out.println("remove(size - 1) / removeLast() / removeFirst(), ns per operation");
+
+        for (int n : SIZES)
+          {
+            LinkedList<Integer> list = filledList(n);
+            long start = System.nanoTime();
+            while (!list.isEmpty())
+                list.remove(list.size() - 1);
+            long removeIndexTime = System.nanoTime() - start;
+
+            list = filledList(n);
+            start = System.nanoTime();
+            while (!list.isEmpty())
+                list.removeLast();
+            long removeLastTime = System.nanoTime() - start;
+
+            list = filledList(n);
+            start = System.nanoTime();
+            while (!list.isEmpty())
+                list.removeFirst();
+            long removeFirstTime = System.nanoTime() - start;
+
+            System.out.printf("  n = %,9d:  %6.1f  %6.1f  %6.1f%n", n,
+                              (double) removeIndexTime / n,
+                              (double) removeLastTime / n,
+                              (double) removeFirstTime / n);
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Reads and updates every element by index, front to back and back
+     * to front, which the cursor turns into constant time per access.
+     */
+    private static void benchmarkSequentialGet()
+      {
+        System.out.println("get(i) / set(i) in index order, ns per operation");
+
+        for (int n : SIZES)
+          {
+            LinkedList<Integer> list = filledList(n);
+            long sum = 0;
+
+            long start = System.nanoTime();
+            for (int i = 0;  i < n;  ++i)
+                sum += list.get(i);
+            for (int i = n - 1;  i >= 0;  --i)
+                list.set(i, i);
+            long time = System.nanoTime() - start;
+
+            System.out.printf("  n = %,9d:  %6.1f   (checksum %d)%n", n, (double) time / (2*n), sum);
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Compares the heap used by, and the iteration and indexOf throughput
+     * of, a node-per-element LinkedList and an UnrolledLinkedList.  Both
+     * lists hold the same Integer objects, so only the list structure
+     * itself is measured.
+     */
+    private static void benchmarkUnrolled()
+      {
+        int n = 1_000_000;
+        Integer[] values = new Integer[n];
+        for (int i = 0;  i < n;  ++i)
+            values[i] = i;
+
+        long before = usedMemory();
+        LinkedList<Integer> linked = new LinkedList<>();
+        for (Integer value : values)
+            linked.add(value);
+        long linkedBytes = usedMemory() - before;
+
+        before = usedMemory();
+        UnrolledLinkedList<Integer> unrolled = new UnrolledLinkedList<>();
+        for (Integer value : values)
+            unrolled.add(value);
+        long unrolledBytes = usedMemory() - before;
+
+        System.out.println("LinkedList vs UnrolledLinkedList, n = " + n);
+        System.out.printf("  bytes per element:       %6.1f  %6.1f%n",
+                          (double) linkedBytes / n, (double) unrolledBytes / n);
+
+        long start = System.nanoTime();
+        long sum = 0;
+        for (Integer value : linked)
+            sum += value;
+        long linkedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Integer value : unrolled)
+            sum -= value;
+        long unrolledTime = System.nanoTime() - start;
+
+        System.out.printf("  iteration, ns/element:   %6.2f  %6.2f   (checksum %d)%n",
+                          (double) linkedTime / n, (double) unrolledTime / n, sum);
+
+        start = System.nanoTime();
+        int index1 = linked.indexOf(-1);
+        linkedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int index2 = unrolled.indexOf(-1);
+        unrolledTime = System.nanoTime() - start;
+
+        System.out.printf("  indexOf miss, ns/element: %5.2f  %6.2f   (%d, %d)%n",
+                          (double) linkedTime / n, (double) unrolledTime / n, index1, index2);
+        System.out.println();
+      }
+
+
+    /**
+     * Runs producers and consumers against a ConcurrentLinkedList and
+     * against a LinkedList guarded by synchronized, at several
+     * producer/consumer ratios.  Every run checks that each element
+     * produced is consumed exactly once (by count and by sum).
+     */
+    private static void benchmarkConcurrent()
+      {
+        int perProducer = 500_000;
+        int[][] ratios = { {1, 1}, {1, 3}, {3, 1}, {2, 2}, {4, 4} };
+
+        System.out.println("producers/consumers, " + perProducer
+                           + " elements per producer, million ops/sec");
+
+        for (int[] ratio : ratios)
+          {
+            ConcurrentLinkedList<Integer> concurrent = new ConcurrentLinkedList<>();
+            double lockFree = runProducersConsumers(ratio[0], ratio[1], perProducer,
+                                                    concurrent::add, concurrent::pollFirst);
+
+            LinkedList<Integer> list = new LinkedList<>();
+            double locked = runProducersConsumers(ratio[0], ratio[1], perProducer,
+                element -> { synchronized (list) { list.add(element); } },
+                () -> { synchronized (list) { return list.isEmpty() ? null : list.removeFirst(); } });
+
+            System.out.printf("  %d/%d:  lock-free %6.2f   synchronized %6.2f%n",
+                              ratio[0], ratio[1], lockFree, locked);
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Starts the producer and consumer threads, waits for all of them, and
+     * returns the throughput in millions of add/remove pairs per second.
+     *
+     * @throws IllegalStateException if an element was lost or duplicated.
+     */
+    private static double runProducersConsumers(int producers, int consumers, int perProducer,
+                                                Consumer<Integer> add, Supplier<Integer> poll)
+      {
+        long total = (long) producers * perProducer;
+        AtomicLong consumed = new AtomicLong();
+        AtomicLong checksum = new AtomicLong();
+        Thread[] threads = new Thread[producers + consumers];
+
+        for (int p = 0;  p < producers;  ++p)
+          {
+            int base = p * perProducer;
+            threads[p] = new Thread(() ->
+              {
+                for (int i = 0;  i < perProducer;  ++i)
+                    add.accept(base + i);
+              });
+          }
+
+        for (int c = 0;  c < consumers;  ++c)
+          {
+            threads[producers + c] = new Thread(() ->
+              {
+                long sum = 0;
+                while (consumed.get() < total)
+                  {
+                    Integer element = poll.get();
+                    if (element == null)
+                        Thread.yield();
+                    else
+                      {
+                        sum += element;
+                        consumed.incrementAndGet();
+                      }
+                  }
+                checksum.addAndGet(sum);
+              });
+          }
+
+        long start = System.nanoTime();
+        for (Thread thread : threads)
+            thread.start();
+        try
+          {
+            for (Thread thread : threads)
+                thread.join();
+          }
+        catch (InterruptedException e)
+          {
+            Thread.currentThread().interrupt();
+          }
+        long time = System.nanoTime() - start;
+
+        if (consumed.get() != total || checksum.get() != total*(total - 1)/2)
+            throw new IllegalStateException("lost or duplicated elements");
+
+        return total * 1000.0 / time;
+      }
+
+
+    /**
+     * Times a map/filter/sum pipeline over a large list with a sequential
+     * stream, a parallel stream over the list's own spliterator, and a
+     * parallel stream over the unsized default spliterator that Iterable
+     * provides.
+     */
+    private static void benchmarkStreams()
+      {
+        int n = 1_000_000;
+        LinkedList<Integer> list = filledList(n);
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.println("map/filter/sum over " + n + " elements (" + cores + " cores), ms");
+
+        long start = System.nanoTime();
+        double sequential = list.stream().mapToDouble(BenchmarkLinkedList::work).filter(x -> x > 1).sum();
+        long sequentialTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        double parallel = list.parallelStream().mapToDouble(BenchmarkLinkedList::work).filter(x -> x > 1).sum();
+        long parallelTime = System.nanoTime() - start;
+
+        Spliterator<Integer> unsized = Spliterators.spliteratorUnknownSize(list.iterator(), Spliterator.ORDERED);
+        start = System.nanoTime();
+        double fallback = StreamSupport.stream(unsized, true).mapToDouble(BenchmarkLinkedList::work).filter(x -> x > 1).sum();
+        long fallbackTime = System.nanoTime() - start;
+
+        System.out.printf("  sequential %.1f   parallel %.1f   parallel (default spliterator) %.1f%n",
+                          sequentialTime / 1e6, parallelTime / 1e6, fallbackTime / 1e6);
+        System.out.printf("  results agree: %b%n",
+                          Math.abs(sequential - parallel) < 1e-6 * sequential
+                              && Math.abs(sequential - fallback) < 1e-6 * sequential);
+        System.out.println();
+      }
+
+
+    /**
+     * Times removing every even element with removeIf() against a scan
+     * that calls remove(int) for each match, and times building a list
+     * with addAll() followed by an O(1) concat().
+     */
+    private static void benchmarkBulk()
+      {
+        System.out.println("filter evens: removeIf / remove(int) scan;  addAll + concat, ns per element");
+
+        for (int n : SIZES)
+          {
+            LinkedList<Integer> list = filledList(n);
+            long start = System.nanoTime();
+            list.removeIf(x -> x % 2 == 0);
+            long removeIfTime = System.nanoTime() - start;
+
+            LinkedList<Integer> list2 = filledList(n);
+            start = System.nanoTime();
+            for (int i = 0;  i < list2.size();  )
+              {
+                if (list2.get(i) % 2 == 0)
+                    list2.remove(i);
+                else
+                    ++i;
+              }
+            long removeIndexTime = System.nanoTime() - start;
+
+            LinkedList<Integer> source = filledList(n);
+            start = System.nanoTime();
+            LinkedList<Integer> front = new LinkedList<>();
+            front.addAll(source);
+            front.concat(filledList(0));
+            LinkedList<Integer> back = new LinkedList<>();
+            back.addAll(source);
+            front.concat(back);
+            long buildTime = System.nanoTime() - start;
+
+            System.out.printf("  n = %,9d:  %6.1f  %6.1f  %6.1f   (%b)%n", n,
+                              (double) removeIfTime / n, (double) removeIndexTime / n,
+                              (double) buildTime / (2*n),
+                              list.equals(list2) && front.size() == 2*n && back.isEmpty());
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Uses a list as a queue with a fixed backlog, adding at the end and
+     * removing from the front, with and without a node pool.  Reports the
+     * time per add/remove pair, the number of garbage collections, the
+     * heap allocated per pair (on JVMs that can measure it for a thread),
+     * and the fraction of insertions that allocated a new node.
+     */
+    private static void benchmarkPooling()
+      {
+        int backlog = 1_000;
+        int ops = 5_000_000;
+
+        System.out.println("queue churn, backlog " + backlog + ", " + ops
+                           + " add/removeFirst pairs:  ns/op, GCs, bytes/op, new nodes");
+
+        for (int capacity : new int[] { 0, backlog })
+          {
+            LinkedList<Integer> list = new LinkedList<>(capacity);
+            for (int i = 0;  i < backlog;  ++i)
+                list.add(i);
+
+            long gcBefore = gcCount();
+            long bytesBefore = allocatedBytes();
+            long start = System.nanoTime();
+
+            long sum = 0;
+            for (int i = 0;  i < ops;  ++i)
+              {
+                list.add(i & 127);   // small values are cached, so only nodes are allocated
+                sum += list.removeFirst();
+              }
+
+            long time = System.nanoTime() - start;
+            long bytes = allocatedBytes() - bytesBefore;
+            long gcs = gcCount() - gcBefore;
+
+            System.out.printf("  pool %5d:  %6.1f  %4d  %6.1f  %6.2f%%   (checksum %d)%n",
+                              capacity, (double) time / ops, gcs,
+                              bytesBefore < 0 ? Double.NaN : (double) bytes / ops,
+                              100.0 * list.getNodesAllocated()
+                                  / (list.getNodesAllocated() + list.getNodesReused()),
+                              sum);
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Compares LinkedList&lt;Long&gt; with LongLinkedList, and
+     * LinkedList&lt;Integer&gt; with IntLinkedList, for heap used per
+     * element (including the boxes), a summing scan, and an indexOf()
+     * that misses.  The values are outside the range of the small-value
+     * box caches, so each boxed element is a separate object.
+     */
+    private static void benchmarkPrimitive()
+      {
+        int n = 1_000_000;
+
+        long before = usedMemory();
+        LinkedList<Long> boxedLongs = new LinkedList<>();
+        for (int i = 0;  i < n;  ++i)
+            boxedLongs.add(1_000L * i);
+        long boxedLongBytes = usedMemory() - before;
+
+        before = usedMemory();
+        LongLinkedList longs = new LongLinkedList();
+        for (int i = 0;  i < n;  ++i)
+            longs.add(1_000L * i);
+        long longBytes = usedMemory() - before;
+
+        before = usedMemory();
+        LinkedList<Integer> boxedInts = new LinkedList<>();
+        for (int i = 0;  i < n;  ++i)
+            boxedInts.add(1_000 * i);
+        long boxedIntBytes = usedMemory() - before;
+
+        before = usedMemory();
+        IntLinkedList ints = new IntLinkedList();
+        for (int i = 0;  i < n;  ++i)
+            ints.add(1_000 * i);
+        long intBytes = usedMemory() - before;
+
+        System.out.println("LinkedList<Long> / LongLinkedList / LinkedList<Integer> / IntLinkedList, n = " + n);
+        System.out.printf("  bytes per element:        %6.1f  %6.1f  %6.1f  %6.1f%n",
+                          (double) boxedLongBytes / n, (double) longBytes / n,
+                          (double) boxedIntBytes / n, (double) intBytes / n);
+
+        long start = System.nanoTime();
+        long sum = 0;
+        for (Long value : boxedLongs)
+            sum += value;
+        long boxedLongTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (PrimitiveIterator.OfLong iter = longs.iterator();  iter.hasNext();  )
+            sum -= iter.nextLong();
+        long longTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (Integer value : boxedInts)
+            sum += value;
+        long boxedIntTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        sum -= ints.stream().asLongStream().sum();
+        long intTime = System.nanoTime() - start;
+
+        System.out.printf("  scan, ns/element:         %6.2f  %6.2f  %6.2f  %6.2f   (checksum %d)%n",
+                          (double) boxedLongTime / n, (double) longTime / n,
+                          (double) boxedIntTime / n, (double) intTime / n, sum);
+
+        start = System.nanoTime();
+        int index1 = boxedLongs.indexOf(-1L);
+        boxedLongTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int index2 = longs.indexOf(-1L);
+        longTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int index3 = boxedInts.indexOf(-1);
+        boxedIntTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        int index4 = ints.indexOf(-1);
+        intTime = System.nanoTime() - start;
+
+        System.out.printf("  indexOf miss, ns/element: %6.2f  %6.2f  %6.2f  %6.2f   (%d, %d, %d, %d)%n",
+                          (double) boxedLongTime / n, (double) longTime / n,
+                          (double) boxedIntTime / n, (double) intTime / n,
+                          index1, index2, index3, index4);
+        System.out.println();
+      }
+
+
+    /**
+     * Times toString(), writeTo(Appendable) through a BufferedWriter, and a
+     * binary writeTo(DataOutput) / readFrom(DataInput) round trip.  For the
+     * smaller sizes it also times the string concatenation loop that
+     * toString() used before, which is quadratic in the size of the list.
+     *
+     * @throws IOException if writing to an in-memory stream fails.
+     */
+    private static void benchmarkOutput() throws IOException
+      {
+        System.out.println("quadratic toString / toString / writeTo(Appendable) / "
+                           + "binary write / binary read, ns per element");
+
+        for (int n : SIZES)
+          {
+            LinkedList<Integer> list = filledList(n);
+
+            double concatTime = Double.NaN;
+            if (n <= 10_000)
+              {
+                long start = System.nanoTime();
+                String s = concatToString(list);
+                concatTime = (double) (System.nanoTime() - start) / n;
+                if (!s.equals(list.toString()))
+                    throw new IllegalStateException("toString mismatch");
+              }
+
+            long start = System.nanoTime();
+            int length = list.toString().length();
+            long toStringTime = System.nanoTime() - start;
+
+            ByteArrayOutputStream text = new ByteArrayOutputStream(length);
+            start = System.nanoTime();
+            try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(text), 1 << 16))
+              {
+                list.writeTo(out);
+              }
+            long writeTextTime = System.nanoTime() - start;
+
+            ByteArrayOutputStream binary = new ByteArrayOutputStream(4 + 4*n);
+            start = System.nanoTime();
+            list.writeTo(new DataOutputStream(binary), DataOutput::writeInt);
+            long writeBinaryTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            LinkedList<Integer> copy = LinkedList.readFrom(
+                new DataInputStream(new ByteArrayInputStream(binary.toByteArray())),
+                DataInput::readInt);
+            long readBinaryTime = System.nanoTime() - start;
+
+            System.out.printf("  n = %,9d:  %7.1f  %6.1f  %6.1f  %6.1f  %6.1f   (%b)%n", n,
+                              concatTime,
+                              (double) toStringTime / n, (double) writeTextTime / n,
+                              (double) writeBinaryTime / n, (double) readBinaryTime / n,
+                              text.size() == length && copy.equals(list));
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * The string concatenation loop that LinkedList.toString() used to
+     * run, kept for comparison.
+     */
+    private static String concatToString(LinkedList<Integer> list)
+      {
+        String rtnval = "[";
+        for (Integer value : list)
+            rtnval += value + ", ";
+        if (!list.isEmpty())
+            rtnval = rtnval.substring(0, rtnval.length() - 2);
+        return rtnval + "]";
+      }
+
+
+    /**
+     * Runs a dedupe stage, which appends each incoming value only if
+     * contains() does not find it, against a plain list and an indexed
+     * list.  Half of the incoming values are repeats.  The plain list is
+     * quadratic, so it is only run at the smaller sizes.  Also reports the
+     * heap used per element by each kind of list.
+     */
+    private static void benchmarkIndexed()
+      {
+        System.out.println("dedupe with contains(): plain / indexed, ns per element");
+
+        for (int n : SIZES)
+          {
+            java.util.Random random = new java.util.Random(n);
+            Integer[] incoming = new Integer[n];
+            for (int i = 0;  i < n;  ++i)
+                incoming[i] = random.nextInt(n / 2);
+
+            double plainTime = Double.NaN;
+            int plainSize = -1;
+            if (n <= 10_000)
+              {
+                LinkedList<Integer> plain = new LinkedList<>();
+                long start = System.nanoTime();
+                for (Integer value : incoming)
+                    if (!plain.contains(value))
+                        plain.add(value);
+                plainTime = (double) (System.nanoTime() - start) / n;
+                plainSize = plain.size();
+              }
+
+            LinkedList<Integer> indexed = new LinkedList<>(0, true);
+            long start = System.nanoTime();
+            for (Integer value : incoming)
+                if (!indexed.contains(value))
+                    indexed.add(value);
+            double indexedTime = (double) (System.nanoTime() - start) / n;
+
+            System.out.printf("  n = %,9d:  %8.1f  %6.1f   (%d distinct%s)%n", n, plainTime, indexedTime,
+                              indexed.size(), plainSize < 0 || plainSize == indexed.size() ? "" : " MISMATCH");
+          }
+
+        int n = 1_000_000;
+        Integer[] values = new Integer[n];
+        for (int i = 0;  i < n;  ++i)
+            values[i] = i;
+
+        long before = usedMemory();
+        LinkedList<Integer> plain = new LinkedList<>();
+        for (Integer value : values)
+            plain.add(value);
+        long plainBytes = usedMemory() - before;
+
+        before = usedMemory();
+        LinkedList<Integer> indexed = new LinkedList<>(0, true);
+        for (Integer value : values)
+            indexed.add(value);
+        long indexedBytes = usedMemory() - before;
+
+        System.out.printf("  list structure, bytes per element:  %6.1f  %6.1f   (%d, %d)%n",
+                          (double) plainBytes / n, (double) indexedBytes / n,
+                          plain.indexOf(n - 1), indexed.indexOf(n - 1));
+        System.out.println();
+      }
+
+
+    /**
+     * Compares random positional access in a LinkedList and a
+     * SkipLinkedList: get(i) at random indices, and add(i, e) followed by
+     * remove(j) at random indices, which keeps the size constant.  Both
+     * lists see the same indices, and the checksums must agree.
+     */
+    private static void benchmarkSkipList()
+      {
+        int ops = 2_000;
+
+        System.out.println("random get / random add+remove: LinkedList, SkipLinkedList, ns per operation");
+
+        for (int n : new int[] { 10_000, 100_000, 1_000_000 })
+          {
+            java.util.Random random = new java.util.Random(n);
+            int[] indices = new int[2*ops];
+            for (int i = 0;  i < indices.length;  ++i)
+                indices[i] = random.nextInt(n);
+
+            LinkedList<Integer> linked = filledList(n);
+            SkipLinkedList<Integer> skip = new SkipLinkedList<>();
+            for (int i = 0;  i < n;  ++i)
+                skip.add(i);
+
+            long start = System.nanoTime();
+            long linkedSum = 0;
+            for (int i = 0;  i < ops;  ++i)
+                linkedSum += linked.get(indices[i]);
+            long linkedGetTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long skipSum = 0;
+            for (int i = 0;  i < ops;  ++i)
+                skipSum += skip.get(indices[i]);
+            long skipGetTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0;  i < ops;  ++i)
+              {
+                linked.add(indices[i], -i);
+                linkedSum += linked.remove(indices[ops + i]);
+              }
+            long linkedUpdateTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0;  i < ops;  ++i)
+              {
+                skip.add(indices[i], -i);
+                skipSum += skip.remove(indices[ops + i]);
+              }
+            long skipUpdateTime = System.nanoTime() - start;
+
+            System.out.printf("  n = %,9d:  %9.1f  %6.1f   %9.1f  %6.1f   (%b)%n", n,
+                              (double) linkedGetTime / ops, (double) skipGetTime / ops,
+                              (double) linkedUpdateTime / (2*ops), (double) skipUpdateTime / (2*ops),
+                              linkedSum == skipSum);
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Compares handing a reader a private copy of a LinkedList with taking
+     * a PersistentList snapshot from a builder, then compares the read
+     * throughput of the two, and times equals() between two snapshots
+     * that differ only in their first element.
+     */
+    private static void benchmarkPersistent()
+      {
+        System.out.println("copy LinkedList / snapshot() ns;  scan LinkedList / PersistentList ns per element;"
+                           + "  equals() of versions ns");
+
+        for (int n : SIZES)
+          {
+            LinkedList<Integer> list = filledList(n);
+            PersistentList.Builder<Integer> builder = new PersistentList.Builder<>();
+            for (int i = n - 1;  i >= 0;  --i)
+                builder.addFirst(i);
+
+            long start = System.nanoTime();
+            LinkedList<Integer> copy = new LinkedList<>();
+            copy.addAll(list);
+            long copyTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            PersistentList<Integer> snapshot = builder.snapshot();
+            long snapshotTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long sum = 0;
+            for (Integer value : copy)
+                sum += value;
+            long listScanTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (Integer value : snapshot)
+                sum -= value;
+            long snapshotScanTime = System.nanoTime() - start;
+
+            // a newer version that replaces the first element shares everything after it
+            builder.removeFirst();
+            builder.addFirst(0);
+            PersistentList<Integer> newer = builder.snapshot();
+
+            start = System.nanoTime();
+            boolean same = snapshot.equals(newer);
+            long equalsTime = System.nanoTime() - start;
+
+            System.out.printf("  n = %,9d:  %11d  %4d   %6.2f  %6.2f   %6d   (checksum %d, %b)%n", n,
+                              copyTime, snapshotTime,
+                              (double) listScanTime / n, (double) snapshotScanTime / n,
+                              equalsTime, sum, same && snapshot.hashCode() == list.hashCode());
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Removes every element divisible by three while scanning, once with
+     * Iterator.remove() and once the old way, by collecting the indices
+     * and then calling remove(int) for each one from the back.
+     */
+    private static void benchmarkIteratorRemove()
+      {
+        System.out.println("filter while iterating: Iterator.remove() / collect indices + remove(int), "
+                           + "ns per element");
+
+        for (int n : SIZES)
+          {
+            LinkedList<Integer> list = filledList(n);
+            long start = System.nanoTime();
+            for (Iterator<Integer> iter = list.iterator();  iter.hasNext();  )
+                if (iter.next() % 3 == 0)
+                    iter.remove();
+            long iteratorTime = System.nanoTime() - start;
+
+            LinkedList<Integer> list2 = filledList(n);
+            start = System.nanoTime();
+            int[] indices = new int[n];
+            int count = 0;
+            int index = 0;
+            for (Integer value : list2)
+              {
+                if (value % 3 == 0)
+                    indices[count++] = index;
+                ++index;
+              }
+            while (count > 0)
+                list2.remove(indices[--count]);
+            long indexTime = System.nanoTime() - start;
+
+            System.out.printf("  n = %,9d:  %6.1f  %6.1f   (%b)%n", n,
+                              (double) iteratorTime / n, (double) indexTime / n, list.equals(list2));
+          }
+        System.out.println();
+      }
+
+
+    /**
+     * Returns the total number of collections run by all of the garbage
+     * collectors.
+     */
+    private static long gcCount()
+      {
+        long count = 0;
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+            count += Math.max(gc.getCollectionCount(), 0);
+
+        return count;
+      }
+
+
+    /**
+     * Returns the number of bytes allocated so far by the current thread,
+     * or -1 if the JVM does not support measuring it.
+     */
+    private static long allocatedBytes()
+      {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        if (threads instanceof com.sun.management.ThreadMXBean)
+          {
+            com.sun.management.ThreadMXBean sunThreads = (com.sun.management.ThreadMXBean) threads;
+            if (sunThreads.isThreadAllocatedMemorySupported() && sunThreads.isThreadAllocatedMemoryEnabled())
+                return sunThreads.getThreadAllocatedBytes(Thread.currentThread().getId());
+          }
+
+        return -1;
+      }
+
+
+    /**
+     * A moderately expensive function of an element for the stream benchmark.
+     */
+    private static double work(int x)
+      {
+        double result = x;
+        for (int i = 0;  i < 20;  ++i)
+            result = Math.sqrt(result + i);
+        return result;
+      }
+
+
+    /**
+     * Returns the heap currently in use after requesting a collection.
+     */
+    static long usedMemory()
+      {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0;  i < 3;  ++i)
+            System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+      }
+
+
+    /**
+     * Returns a list containing the integers 0 through n - 1.
+     */
+    static LinkedList<Integer> filledList(int n)
+      {
+        LinkedList<Integer> list = new LinkedList<>();
+
+        for (int i = 0;  i < n;  ++i)
+            list.add(i);
+
+        return list;
+      }
+  }
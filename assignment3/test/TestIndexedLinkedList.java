@@ -0,0 +1,123 @@
+package test;
+
+
+import edu.citadel.util.LinkedList;
+
+
+public class TestIndexedLinkedList
+  {
+    private static final String[] NAMES =
+      {
+        "John", "Elvis", "Mick", "Curly", "Larry", "Moe", "Diana", null
+      };
+
+
+    public static void main(String[] args)
+      {
+        // each operation is applied to an indexed list and to a plain one,
+        // which answers indexOf() and contains() by scanning
+        LinkedList<String> l     = new LinkedList<>(0, true);
+        LinkedList<String> plain = new LinkedList<>();
+
+        for (String name : new String[] { "John", "Elvis", "Mick", "John", "Elvis" })
+          {
+            l.add(name);
+            plain.add(name);
+          }
+        print("Appended with duplicates:", l, plain);
+
+        // mid-list inserts before, between, and after existing duplicates
+        l.add(2, "John");
+        plain.add(2, "John");
+        l.add(0, "Mick");
+        plain.add(0, "Mick");
+        l.add(4, "Curly");
+        plain.add(4, "Curly");
+        l.add(l.size() - 1, null);
+        plain.add(plain.size() - 1, null);
+        print("After mid-list inserts:", l, plain);
+
+        // set an element to a duplicate, to a new element, and to null
+        l.set(1, "Elvis");
+        plain.set(1, "Elvis");
+        l.set(5, "Larry");
+        plain.set(5, "Larry");
+        l.set(3, null);
+        plain.set(3, null);
+        print("After set:", l, plain);
+
+        // remove the first of several duplicates, and the last of an element
+        System.out.println("Removing " + l.remove(l.indexOf("Elvis")));
+        plain.remove(plain.indexOf("Elvis"));
+        System.out.println("Removing " + l.remove(l.indexOf("Curly")));
+        plain.remove(plain.indexOf("Curly"));
+        System.out.println("Removing " + l.removeFirst());
+        plain.removeFirst();
+        System.out.println("Removing " + l.removeLast());
+        plain.removeLast();
+        print("After remove:", l, plain);
+
+        // split between duplicates
+        LinkedList<String> tail      = l.splitAt(3);
+        LinkedList<String> plainTail = plain.splitAt(3);
+        print("Head after splitAt(3):", l, plain);
+        print("Tail after splitAt(3):", tail, plainTail);
+
+        tail.add(1, "Moe");
+        plainTail.add(1, "Moe");
+        tail.add("John");
+        plainTail.add("John");
+        print("Tail after inserts:", tail, plainTail);
+
+        // concatenate the tail back on, then a plain list onto the indexed one
+        l.concat(tail);
+        plain.concat(plainTail);
+        print("After concat(tail):", l, plain);
+        System.out.println(tail.isEmpty() ? "The tail is empty." : "The tail is not empty.");
+        System.out.println("tail.contains(\"John\") = " + tail.contains("John"));
+        System.out.println("tail.indexOf(\"John\") = " + tail.indexOf("John"));
+        System.out.println();
+
+        LinkedList<String> more      = new LinkedList<>();
+        LinkedList<String> plainMore = new LinkedList<>();
+        for (String name : new String[] { "Diana", "Mick", "Diana" })
+          {
+            more.add(name);
+            plainMore.add(name);
+          }
+        l.concat(more);
+        plain.concat(plainMore);
+        print("After concat(plain list):", l, plain);
+
+        l.clear();
+        plain.clear();
+        print("After clear:", l, plain);
+      }
+
+
+    /**
+     * Prints the list and, for every name, indexOf() and contains() as the
+     * indexed list answers them, and reports any answer that differs from
+     * the plain list's.
+     */
+    private static void print(String title, LinkedList<String> l, LinkedList<String> plain)
+      {
+        System.out.println(title);
+        System.out.println(l);
+        if (!l.equals(plain))
+            System.out.println("*** lists differ: plain list is " + plain);
+
+        for (String name : NAMES)
+          {
+            int     index    = l.indexOf(name);
+            boolean contains = l.contains(name);
+            String  label    = (name == null) ? "null" : "\"" + name + "\"";
+            System.out.println("index of " + label + " = " + index
+                             + (contains ? ", contained" : ", not contained"));
+
+            if (index != plain.indexOf(name) || contains != plain.contains(name))
+                System.out.println("*** plain list gives index " + plain.indexOf(name));
+          }
+        System.out.println();
+      }
+  }
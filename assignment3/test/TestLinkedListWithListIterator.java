@@ -0,0 +1,125 @@
+package test;
+
+
+import java.util.ListIterator;
+
+import edu.citadel.util.LinkedList;
+
+
+public class TestLinkedListWithListIterator
+  {
+    public static void main(String[] args)
+      {
+        LinkedList<String> names = new LinkedList<>();
+        names.add("John");
+        names.add("Elvis");
+        names.add("Mick");
+        names.add("Curly");
+        names.add("Larry");
+        names.add("Moe");
+        names.add("Diana");
+        System.out.println(names);
+        System.out.println();
+
+        // forward: remove "Elvis", replace "Curly", insert after "Moe"
+        ListIterator<String> iter = names.listIterator();
+        while (iter.hasNext())
+          {
+            String name = iter.next();
+            if (name.equals("Elvis"))
+                iter.remove();
+            else if (name.equals("Curly"))
+                iter.set("Shemp");
+            else if (name.equals("Moe"))
+                iter.add("Bruce");
+          }
+        System.out.println(names);
+        System.out.println("size = " + names.size());
+        System.out.println();
+
+        // backward from the end: remove "Diana", replace "Mick", insert before "John"
+        iter = names.listIterator(names.size());
+        while (iter.hasPrevious())
+          {
+            int index = iter.previousIndex();
+            String name = iter.previous();
+            System.out.println(index + ": " + name);
+            if (name.equals("Diana"))
+                iter.remove();
+            else if (name.equals("Mick"))
+                iter.set("Keith");
+            else if (name.equals("John"))
+                iter.add("Paul");
+          }
+        System.out.println(names);
+        System.out.println("size = " + names.size());
+        System.out.println();
+
+        // change direction in the middle of the list
+        iter = names.listIterator(2);
+        System.out.println("next() = " + iter.next());
+        System.out.println("previous() = " + iter.previous());
+        iter.remove();
+        System.out.println("nextIndex() = " + iter.nextIndex());
+        System.out.println("next() = " + iter.next());
+        iter.add("Ringo");
+        System.out.println("previous() = " + iter.previous());
+        iter.set("George");
+        System.out.println(names);
+        System.out.println("size = " + names.size());
+        System.out.println();
+
+        // remove every element going forward, then add them back in order
+        iter = names.listIterator();
+        while (iter.hasNext())
+          {
+            iter.next();
+            iter.remove();
+          }
+        System.out.println(names.isEmpty() ? "The list is empty." : "The list is not empty.");
+        iter.add("Moe");
+        iter.add("Larry");
+        iter.add("Curly");
+        System.out.println(names);
+        System.out.println("previous() = " + iter.previous());
+        System.out.println();
+
+        try
+          {
+            iter.set("Joe");
+            iter.remove();
+            iter.remove();   // should throw an exception
+          }
+        catch (IllegalStateException e)
+          {
+            System.out.println("Caught " + e);
+          }
+        System.out.println(names);
+        System.out.println();
+
+        // modify the list other than through the iterator
+        iter = names.listIterator();
+        System.out.println("next() = " + iter.next());
+        names.add("Shemp");
+        try
+          {
+            iter.next();   // should throw an exception
+          }
+        catch (Exception e)
+          {
+            System.out.println("Caught " + e);
+          }
+
+        try
+          {
+            for (String name : names)
+                if (name.equals("Moe"))
+                    names.remove(0);   // should throw an exception
+          }
+        catch (Exception e)
+          {
+            System.out.println("Caught " + e);
+          }
+        System.out.println(names);
+      }
+  }